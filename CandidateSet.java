@@ -0,0 +1,258 @@
+/**
+ * CandidateSet
+ * the set of codes that are still possible, stored as a bitset over code indices
+ * bit i of words[i / 64] is set while code i is a candidate
+ * the number of candidates is tracked on every change, so cardinality() is O(1)
+ * codes that the spec doesn't allow (repeated colours) are never candidates
+ */
+
+import java.util.Arrays; // import arrays
+
+public final class CandidateSet {
+
+    private final long[] words; // one bit per code
+    private final int size; // number of codes in the code space
+    private final CodeSpace codeSpace; // code space, or null if every index is a valid code
+    private int count; // number of candidates left
+    private int[] wordCodes; // prune's candidates of one word, made by the first prune
+    private int[] wordIds; // their feedback ids
+
+    /**
+     * CandidateSet
+     * creates a set where every code of the code space is a candidate
+     * @param size number of codes in the code space
+     */
+    public CandidateSet(int size) {
+        this.size = size;
+        this.codeSpace = null;
+        this.words = new long[(size + 63) >>> 6];
+        reset();
+    }
+
+    /**
+     * CandidateSet
+     * creates a set where every valid code of the code space is a candidate
+     * @param codeSpace
+     */
+    public CandidateSet(CodeSpace codeSpace) {
+        this.size = codeSpace.size();
+        this.codeSpace = codeSpace.allowsDuplicates() ? null : codeSpace;
+        this.words = new long[(size + 63) >>> 6];
+        reset();
+    }
+
+    /**
+     * CandidateSet
+     * copies another set
+     * @param other
+     */
+    private CandidateSet(CandidateSet other) {
+        this.size = other.size;
+        this.codeSpace = other.codeSpace;
+        this.words = other.words.clone();
+        this.count = other.count;
+    }
+
+    /**
+     * reset
+     * makes every code a candidate again
+     */
+    public void reset() {
+        Arrays.fill(words, -1L);
+        if ((size & 63) != 0) {
+            words[words.length - 1] = (1L << size) - 1; // clear the bits past the last code (shift is mod 64)
+        }
+        count = size;
+        if (codeSpace != null) {
+            for (int code = 0; code < size; code++) {
+                if (!codeSpace.isValid(code)) {
+                    remove(code);
+                }
+            }
+        }
+    }
+
+    /**
+     * cardinality
+     * @return number of candidates left
+     */
+    public int cardinality() {
+        return count;
+    }
+
+    /**
+     * isEmpty
+     * @return true if no candidates are left
+     */
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * contains
+     * @param code
+     * @return true if the code is still a candidate
+     */
+    public boolean contains(int code) {
+        return (words[code >>> 6] & (1L << code)) != 0;
+    }
+
+    /**
+     * remove
+     * removes a single code from the candidates
+     * @param code
+     */
+    public void remove(int code) {
+        long bit = 1L << code;
+        if ((words[code >>> 6] & bit) != 0) {
+            words[code >>> 6] &= ~bit;
+            count--;
+        }
+    }
+
+    /**
+     * prune
+     * keeps only the candidates that would have given the same feedback for the guess
+     * walks the set one 64-bit word at a time, skips empty words and scores each word's candidates in one batch
+     * @param scorer
+     * @param guess
+     * @param feedback feedback id given for the guess
+     * @return number of candidates removed
+     */
+    public int prune(FeedbackScorer scorer, int guess, int feedback) {
+        return prune(scorer, guess, feedback, null);
+    }
+
+    /**
+     * prune
+     * same as above, also listing the removed candidates in index order
+     * @param scorer
+     * @param guess
+     * @param feedback feedback id given for the guess
+     * @param removedCodes filled with the removed candidates, or null
+     * @return number of candidates removed
+     */
+    public int prune(FeedbackScorer scorer, int guess, int feedback, int[] removedCodes) {
+        int removed = 0;
+        if (wordCodes == null) {
+            wordCodes = new int[64];
+            wordIds = new int[64];
+        }
+        int[] codes = wordCodes; // candidates of one word, kept so a prune allocates nothing
+        int[] ids = wordIds; // their feedback ids
+        for (int w = 0; w < words.length; w++) {
+            long word = words[w];
+            if (word == 0) {
+                continue;
+            }
+            int n = 0;
+            for (long bits = word; bits != 0; bits &= bits - 1) {
+                codes[n++] = (w << 6) + Long.numberOfTrailingZeros(bits);
+            }
+            scorer.scoreAll(guess, codes, 0, n, ids); // whole word at once
+            long keep = word;
+            for (int i = 0; i < n; i++) {
+                if (ids[i] != feedback) {
+                    keep &= ~(1L << codes[i]);
+                    if (removedCodes != null) {
+                        removedCodes[removed] = codes[i];
+                    }
+                    removed++;
+                }
+            }
+            words[w] = keep;
+        }
+        count -= removed;
+        return removed;
+    }
+
+    /**
+     * next
+     * returns the first candidate at or after a code
+     * @param from
+     * @return candidate, or -1 if there is none
+     */
+    public int next(int from) {
+        if (from >= size) {
+            return -1;
+        }
+        int w = from >>> 6;
+        long word = words[w] & (-1L << from);
+        while (word == 0) {
+            if (++w == words.length) {
+                return -1;
+            }
+            word = words[w];
+        }
+        return (w << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * get
+     * returns the n-th candidate in index order, skipping whole words by their bit count
+     * @param n from 0 to cardinality() - 1
+     * @return candidate
+     */
+    public int get(int n) {
+        for (int w = 0; w < words.length; w++) {
+            long word = words[w];
+            int bits = Long.bitCount(word);
+            if (n < bits) {
+                for (int i = 0; i < n; i++) {
+                    word &= word - 1; // drop the lowest set bit
+                }
+                return (w << 6) + Long.numberOfTrailingZeros(word);
+            }
+            n -= bits;
+        }
+        throw new IndexOutOfBoundsException("candidate " + n + " of " + count);
+    }
+
+    /**
+     * toArray
+     * copies the candidates in index order into an array
+     * @param out array with room for cardinality() entries
+     * @return number of candidates copied
+     */
+    public int toArray(int[] out) {
+        int n = 0;
+        for (int w = 0; w < words.length; w++) {
+            long word = words[w];
+            while (word != 0) {
+                out[n++] = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * snapshot
+     * copies the current candidates, to be put back later with restore()
+     * @return copy of this set
+     */
+    public CandidateSet snapshot() {
+        return new CandidateSet(this);
+    }
+
+    /**
+     * restore
+     * replaces the candidates with the ones of a snapshot of the same code space
+     * @param snapshot
+     */
+    public void restore(CandidateSet snapshot) {
+        if (snapshot.size != size) {
+            throw new IllegalArgumentException("snapshot is for a code space of " + snapshot.size + " codes, not " + size);
+        }
+        System.arraycopy(snapshot.words, 0, words, 0, words.length);
+        count = snapshot.count;
+    }
+
+    /**
+     * size
+     * @return number of codes in the code space
+     */
+    public int size() {
+        return size;
+    }
+}
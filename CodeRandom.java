@@ -0,0 +1,224 @@
+/**
+ * CodeRandom
+ * the random source for secret codes and random guesses, passed to whoever needs it instead of
+ * creating a new Random for every call
+ * wraps a SplittableRandom: seeding is cheap and split() hands out an independent stream, so
+ * parallel simulation workers don't share state and a seed replays the same choices
+ * the method names follow GameRandom (setSeed(String), choose, shuffle, sample, nextChar); GameRandom
+ * belongs to the engine package and extends the synchronised java.util.Random, so it isn't used directly
+ * not thread safe, one instance per thread (split one off for each worker)
+ */
+
+import java.util.List; // import list
+import java.util.SplittableRandom; // import splittable random
+
+public class CodeRandom {
+
+    private SplittableRandom random; // current stream, replaced by setSeed
+
+    /**
+     * CodeRandom
+     * seeded from the clock, for interactive games
+     */
+    public CodeRandom() {
+        this(new SplittableRandom());
+    }
+
+    /**
+     * CodeRandom
+     * @param seed
+     */
+    public CodeRandom(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    /**
+     * CodeRandom
+     * @param random
+     */
+    private CodeRandom(SplittableRandom random) {
+        this.random = random;
+    }
+
+    /**
+     * setSeed
+     * restarts the stream, the same seed always gives the same choices
+     * @param seed
+     */
+    public void setSeed(long seed) {
+        random = new SplittableRandom(seed);
+    }
+
+    /**
+     * setSeed
+     * @param seed any string, e.g. a seed typed by the user
+     */
+    public void setSeed(String seed) {
+        setSeed(seed.hashCode());
+    }
+
+    /**
+     * split
+     * @return a new generator with its own stream, for another thread
+     */
+    public CodeRandom split() {
+        return new CodeRandom(random.split());
+    }
+
+    /**
+     * nextInt
+     * @param bound
+     * @return number from 0 up to bound (exclusive)
+     */
+    public int nextInt(int bound) {
+        return random.nextInt(bound);
+    }
+
+    /**
+     * nextInt
+     * @param min
+     * @param bound
+     * @return number from min up to bound (exclusive)
+     */
+    public int nextInt(int min, int bound) {
+        return random.nextInt(min, bound);
+    }
+
+    /**
+     * nextLong
+     * @return any long
+     */
+    public long nextLong() {
+        return random.nextLong();
+    }
+
+    /**
+     * nextChar
+     * @param alphabet
+     * @return one character of the alphabet
+     */
+    public char nextChar(String alphabet) {
+        return alphabet.charAt(random.nextInt(alphabet.length()));
+    }
+
+    /**
+     * nextCode
+     * @param alphabet
+     * @param length
+     * @return code of the given length, each character picked from the alphabet
+     */
+    public char[] nextCode(String alphabet, int length) {
+        char[] code = new char[length];
+        for (int i = 0; i < length; i++) {
+            code[i] = nextChar(alphabet);
+        }
+        return code;
+    }
+
+    /**
+     * nextCode
+     * picks codes until one is valid for the spec, the way a server draws its secret codes
+     * @param spec
+     * @return code
+     */
+    public char[] nextCode(GameSpec spec) {
+        char[] code;
+        do {
+            code = nextCode(spec.getAlphabet(), spec.getLength());
+        } while (!spec.isValidCode(new String(code))); // retry codes with repeated colours if they aren't allowed
+        return code;
+    }
+
+    /**
+     * nextCode
+     * picks codes until one is valid (no repeated colours if the spec doesn't allow them)
+     * @param codeSpace
+     * @return index of a valid code
+     */
+    public int nextCode(CodeSpace codeSpace) {
+        int code;
+        do {
+            code = random.nextInt(codeSpace.size());
+        } while (!codeSpace.isValid(code));
+        return code;
+    }
+
+    /**
+     * choose
+     * @param array
+     * @return one element of the array
+     */
+    public int choose(int... array) {
+        if (array.length == 0) {
+            throw new IllegalArgumentException("array to choose an element from must not be empty");
+        }
+        return array[random.nextInt(array.length)];
+    }
+
+    /**
+     * choose
+     * @param list
+     * @return one element of the list
+     */
+    public <T> T choose(List<T> list) {
+        if (list.isEmpty()) {
+            throw new IllegalArgumentException("list to choose an element from must not be empty");
+        }
+        return list.get(random.nextInt(list.size()));
+    }
+
+    /**
+     * choose
+     * @param candidates
+     * @return one code of the set
+     */
+    public int choose(CandidateSet candidates) {
+        if (candidates.isEmpty()) {
+            throw new IllegalArgumentException("candidate set to choose a code from must not be empty");
+        }
+        return candidates.get(random.nextInt(candidates.cardinality()));
+    }
+
+    /**
+     * shuffle
+     * shuffles the array in place (Fisher-Yates)
+     * @param array
+     */
+    public void shuffle(int[] array) {
+        for (int i = array.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = array[i];
+            array[i] = array[j];
+            array[j] = swap;
+        }
+    }
+
+    /**
+     * sample
+     * @param array
+     * @param amount number of elements to pick
+     * @param replacement true if an element can be picked more than once
+     * @return picked elements
+     */
+    public int[] sample(int[] array, int amount, boolean replacement) {
+        if (!replacement && array.length < amount) {
+            throw new IllegalArgumentException("amount must be <= the array length for sampling without replacement");
+        }
+        int[] sampled = new int[amount];
+        if (replacement) {
+            for (int i = 0; i < amount; i++) {
+                sampled[i] = choose(array);
+            }
+            return sampled;
+        }
+        int[] copy = array.clone();
+        for (int i = 0; i < amount; i++) { // partial shuffle, only the picked prefix
+            int j = random.nextInt(i, copy.length);
+            int swap = copy[i];
+            copy[i] = copy[j];
+            copy[j] = swap;
+        }
+        System.arraycopy(copy, 0, sampled, 0, amount);
+        return sampled;
+    }
+}
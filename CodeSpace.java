@@ -0,0 +1,258 @@
+/**
+ * CodeSpace
+ * every code of a given length over the valid characters, numbered without building them
+ * a code's index is its digits (positions in the valid characters) read as a base-N number,
+ * first peg most significant, so index order is the same as the old recursive generation order
+ * codes are only decoded to char[] when asked for, and the space can be streamed or split
+ * in parallel as plain int indices
+ * for specs without repeated colours the indices of codes with repeats are skipped by isValid()
+ */
+
+import java.util.Comparator; // import comparator
+import java.util.Spliterator; // import spliterator
+import java.util.function.IntConsumer; // import int consumer
+import java.util.stream.IntStream; // import int stream
+import java.util.stream.StreamSupport; // import stream support
+
+public class CodeSpace {
+
+    private final String validChars; // valid characters for code
+    private final int length; // length of code
+    private final int size; // number of codes, validChars.length() ^ length
+    private final boolean duplicatesAllowed; // false if codes with a repeated colour aren't valid
+
+    /**
+     * CodeSpace
+     * @param spec
+     */
+    public CodeSpace(GameSpec spec) {
+        this(spec.getAlphabet(), spec.getLength(), spec.allowsDuplicates());
+    }
+
+    /**
+     * CodeSpace
+     * @param validChars
+     * @param length
+     */
+    public CodeSpace(String validChars, int length) {
+        this(validChars, length, true);
+    }
+
+    /**
+     * CodeSpace
+     * @param validChars
+     * @param length
+     * @param duplicatesAllowed
+     */
+    public CodeSpace(String validChars, int length, boolean duplicatesAllowed) {
+        long count = 1;
+        for (int i = 0; i < length; i++) {
+            count *= validChars.length();
+            if (count > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("code space is too large for int indices: " + validChars + "/" + length);
+            }
+        }
+        this.validChars = validChars;
+        this.length = length;
+        this.size = (int) count;
+        this.duplicatesAllowed = duplicatesAllowed;
+    }
+
+    /**
+     * isValid
+     * @param index
+     * @return false if the code repeats a colour and the spec doesn't allow that
+     */
+    public boolean isValid(int index) {
+        if (duplicatesAllowed) {
+            return true;
+        }
+        int colours = validChars.length();
+        if (colours > 64) { // too many colours for a bit mask
+            char[] code = decode(index);
+            return new String(code).chars().distinct().count() == length;
+        }
+        long seen = 0; // bit per colour used so far
+        for (int i = 0; i < length; i++) {
+            long bit = 1L << (index % colours);
+            if ((seen & bit) != 0) {
+                return false;
+            }
+            seen |= bit;
+            index /= colours;
+        }
+        return true;
+    }
+
+    /**
+     * size
+     * @return number of codes
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * encode
+     * converts a code to its index
+     * @param code
+     * @return index, or -1 if the code is not of the correct length or has invalid characters
+     */
+    public int encode(char[] code) {
+        if (code.length != length) {
+            return -1;
+        }
+        int index = 0;
+        for (char c : code) {
+            int digit = validChars.indexOf(c);
+            if (digit == -1) {
+                return -1;
+            }
+            index = index * validChars.length() + digit;
+        }
+        return index;
+    }
+
+    /**
+     * decode
+     * converts an index to its code
+     * @param index
+     * @return code
+     */
+    public char[] decode(int index) {
+        char[] code = new char[length];
+        decode(index, code);
+        return code;
+    }
+
+    /**
+     * decode
+     * converts an index to its code, into an existing array
+     * @param index
+     * @param code array of the code length
+     */
+    public void decode(int index, char[] code) {
+        int colours = validChars.length();
+        for (int i = length - 1; i >= 0; i--) {
+            code[i] = validChars.charAt(index % colours);
+            index /= colours;
+        }
+    }
+
+    /**
+     * digits
+     * splits an index into one digit per peg, into an existing array
+     * @param index
+     * @param digits array of the code length
+     */
+    public void digits(int index, int[] digits) {
+        int colours = validChars.length();
+        for (int i = length - 1; i >= 0; i--) {
+            digits[i] = index % colours;
+            index /= colours;
+        }
+    }
+
+    /**
+     * next
+     * steps digits to the next code like an odometer, last peg first
+     * @param digits
+     * @param colours
+     * @return false once the digits wrap around past the last code
+     */
+    public static boolean next(int[] digits, int colours) {
+        for (int i = digits.length - 1; i >= 0; i--) {
+            if (++digits[i] < colours) {
+                return true;
+            }
+            digits[i] = 0; // carry into the next peg
+        }
+        return false;
+    }
+
+    /**
+     * stream
+     * @param parallel
+     * @return every code index, in order
+     */
+    public IntStream stream(boolean parallel) {
+        return StreamSupport.intStream(spliterator(), parallel);
+    }
+
+    /**
+     * spliterator
+     * @return spliterator over every code index, which splits in halves
+     */
+    public Spliterator.OfInt spliterator() {
+        return new IndexSpliterator(0, size);
+    }
+
+    public String getValidChars() {
+        return validChars;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public boolean allowsDuplicates() {
+        return duplicatesAllowed;
+    }
+
+    /**
+     * IndexSpliterator
+     * walks a range of code indices, from (inclusive) to end (exclusive)
+     */
+    static final class IndexSpliterator implements Spliterator.OfInt {
+        private int from;
+        private final int end;
+
+        IndexSpliterator(int from, int end) {
+            this.from = from;
+            this.end = end;
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            if (from >= end) {
+                return false;
+            }
+            action.accept(from++);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            for (int i = from; i < end; i++) {
+                action.accept(i);
+            }
+            from = end;
+        }
+
+        @Override
+        public Spliterator.OfInt trySplit() {
+            int middle = (from + end) >>> 1;
+            if (middle <= from) {
+                return null;
+            }
+            IndexSpliterator prefix = new IndexSpliterator(from, middle);
+            from = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - from;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | DISTINCT | SORTED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+        }
+
+        @Override
+        public Comparator<? super Integer> getComparator() {
+            return null; // natural order
+        }
+    }
+}
@@ -5,13 +5,14 @@ import com.badlogic.gdx.Input.Keys;
 import com.badlogic.gdx.InputProcessor;
 
 import java.util.ArrayList;
-import java.util.Random;
 
 class Constants {
     static final String GAME_IDENTIFIER = "com.example.codebreaker";
-    static final String VALID_CHARS = "GRBYOP";
-    static final int CODE_LENGTH = 4;
-    static final int MAX_TRIES = 10;
+    static final GameSpec SPEC = GameSpec.CLASSIC;
+    static final FeedbackScorer SCORER = FeedbackScorer.forSpec(SPEC);
+    static final String VALID_CHARS = SPEC.getAlphabet();
+    static final int CODE_LENGTH = SPEC.getLength();
+    static final int MAX_TRIES = SPEC.getMaxTries();
 }
 
 public class Codebreaker extends BasicGame implements InputProcessor {
@@ -21,6 +22,7 @@ public class Codebreaker extends BasicGame implements InputProcessor {
     private int currentAttempt = 0;
     private boolean gameWon = false;
     private boolean gameOver = false;
+    private final CodeRandom random = new CodeRandom();
 
     private ArrayList attemptHistory = new ArrayList();
     private ArrayList feedbackHistory = new ArrayList();
@@ -85,12 +87,13 @@ public class Codebreaker extends BasicGame implements InputProcessor {
     }
 
     private void processGuess() {
-        feedback = getFeedback(secretCode, userGuess);
+        int feedbackId = getFeedback(secretCode, userGuess);
+        feedback = Constants.SCORER.feedbackString(feedbackId);
         attemptHistory.add(userGuess);
         feedbackHistory.add(feedback);
         currentAttempt++;
 
-        if (feedback.equals("bbbb")) {
+        if (feedbackId == Constants.SCORER.solvedId()) {
             gameWon = true;
         } else if (currentAttempt >= Constants.MAX_TRIES) {
             gameOver = true;
@@ -99,49 +102,11 @@ public class Codebreaker extends BasicGame implements InputProcessor {
     }
 
     private String generateRandomCode(String validChars, int length) {
-        Random random = new Random();
-        StringBuffer code = new StringBuffer();
-        for (int i = 0; i < length; i++) {
-            code.append(validChars.charAt(random.nextInt(validChars.length())));
-        }
-        return code.toString();
+        return new String(random.nextCode(validChars, length));
     }
 
-    private String getFeedback(String secret, String guess) {
-        boolean[] codeUsed = new boolean[Constants.CODE_LENGTH];
-        boolean[] guessUsed = new boolean[Constants.CODE_LENGTH];
-        int black = 0, white = 0;
-
-        // Check for exact matches
-        for (int i = 0; i < Constants.CODE_LENGTH; i++) {
-            if (secret.charAt(i) == guess.charAt(i)) {
-                black++;
-                codeUsed[i] = true;
-                guessUsed[i] = true;
-            }
-        }
-
-        // Check for partial matches
-        for (int i = 0; i < Constants.CODE_LENGTH; i++) {
-            if (!codeUsed[i]) {
-                for (int j = 0; j < Constants.CODE_LENGTH; j++) {
-                    if (!guessUsed[j] && secret.charAt(i) == guess.charAt(j)) {
-                        white++;
-                        guessUsed[j] = true;
-                        break;
-                    }
-                }
-            }
-        }
-
-        String feedback = "";
-        for (int i = 0; i < black; i++) {
-            feedback += 'b';
-        }
-        for (int i = 0; i < white; i++) {
-            feedback += 'w';
-        }
-        return feedback;
+    private int getFeedback(String secret, String guess) {
+        return Constants.SCORER.feedback(secret.toCharArray(), guess.toCharArray());
     }
 
     // Other InputProcessor methods (touch, mouse, etc.) if needed
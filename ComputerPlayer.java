@@ -0,0 +1,212 @@
+/**
+ * ComputerPlayer
+ * the computer codebreaker for one game at a time, working on code indices of a feedback scorer
+ * 1. easy guesses randomly and ignores feedback for its guesses, but still narrows its candidates so
+ *    isConsistent() notices a contradiction
+ * 2. medium guesses a random code that is still possible
+ * 3. hard guesses the best code by a GuessStrategy (minimax by default) over the codes that are still possible,
+ *    taking its first two guesses from an opening book when it has one,
+ *    or walks a precomputed strategy tree without any searching
+ * a new player is ready for its first game, call reset() between games;
+ * a player (and its selector) must only be used by one thread
+ */
+
+import java.util.Arrays; // import arrays
+
+public final class ComputerPlayer {
+
+    // difficulty levels, same numbers as the menu
+    static final int EASY = 1;
+    static final int MEDIUM = 2;
+    static final int HARD = 3;
+
+    private final FeedbackScorer scorer; // feedback for the code space
+    private final int difficulty; // EASY, MEDIUM or HARD
+    private final CodeRandom random; // random source for easy and medium guesses
+    private final CandidateSet candidates; // codes that are still possible
+    private final GuessSelector selector; // guess selection for hard mode
+    private final int[] scratch; // candidates as an array, for the selector
+    private final PartitionHistograms histograms; // guess costs kept across turns for hard mode, or null
+    private final int[] removed; // candidates removed by the last prune, for the histograms
+    private final OpeningBook book; // precomputed first and second guesses for hard mode, or null
+    private final StrategyTree tree; // precomputed guesses for every feedback, or null
+    private int node; // current node of the tree
+    private int turn; // number of guesses given feedback this game
+    private int[] history; // guesses given feedback this game, for the symmetry of hard mode
+    private int firstFeedback; // feedback id for the first guess
+
+    /**
+     * ComputerPlayer
+     * @param scorer
+     * @param difficulty
+     * @param random
+     */
+    public ComputerPlayer(FeedbackScorer scorer, int difficulty, CodeRandom random) {
+        this(scorer, difficulty, GuessStrategy.MINIMAX, random, null);
+    }
+
+    /**
+     * ComputerPlayer
+     * @param scorer
+     * @param difficulty
+     * @param strategy how hard mode picks its guesses
+     * @param random
+     * @param book opening book for the scorer's spec and the strategy, or null to always search (hard mode only)
+     */
+    public ComputerPlayer(FeedbackScorer scorer, int difficulty, GuessStrategy strategy, CodeRandom random, OpeningBook book) {
+        this(scorer, difficulty, strategy, random, book, true);
+    }
+
+    /**
+     * ComputerPlayer
+     * @param scorer
+     * @param difficulty
+     * @param strategy how hard mode picks its guesses
+     * @param random
+     * @param book opening book for the scorer's spec and the strategy, or null to always search (hard mode only)
+     * @param keepHistograms false to search every turn instead of keeping partition histograms, which saves
+     *                       guesses x feedback ids ints per player (for servers running many games at once)
+     */
+    public ComputerPlayer(FeedbackScorer scorer, int difficulty, GuessStrategy strategy, CodeRandom random, OpeningBook book, boolean keepHistograms) {
+        if (difficulty < EASY || difficulty > HARD) {
+            throw new IllegalArgumentException("unknown difficulty: " + difficulty);
+        }
+        if (book != null && book.getStrategy() != strategy) {
+            throw new IllegalArgumentException("opening book is for " + book.getStrategy() + ", not " + strategy);
+        }
+        this.scorer = scorer;
+        this.difficulty = difficulty;
+        this.random = random;
+        this.candidates = new CandidateSet(scorer.getCodeSpace());
+        this.selector = difficulty == HARD ? new GuessSelector(scorer, strategy) : null;
+        this.scratch = difficulty == HARD ? new int[scorer.getCodeCount()] : null;
+        boolean incremental = difficulty == HARD && keepHistograms && PartitionHistograms.fits(scorer); // histograms fit in memory
+        this.histograms = incremental ? new PartitionHistograms(scorer, strategy) : null;
+        this.removed = incremental ? new int[scorer.getCodeCount()] : null;
+        this.book = difficulty == HARD ? book : null;
+        this.tree = null;
+        this.history = new int[scorer.getSpec().getMaxTries()];
+        reset(); // starts the histograms, so the first game doesn't rescore every turn
+    }
+
+    /**
+     * ComputerPlayer
+     * a hard player that only walks a strategy tree, it keeps no candidates
+     * @param scorer
+     * @param tree tree built for the scorer's spec
+     * @param random
+     */
+    public ComputerPlayer(FeedbackScorer scorer, StrategyTree tree, CodeRandom random) {
+        this.scorer = scorer;
+        this.difficulty = HARD;
+        this.random = random;
+        this.candidates = null;
+        this.selector = null;
+        this.scratch = null;
+        this.histograms = null;
+        this.removed = null;
+        this.book = null;
+        this.tree = tree;
+        this.history = new int[scorer.getSpec().getMaxTries()];
+        reset();
+    }
+
+    /**
+     * reset
+     * starts a new game
+     */
+    public void reset() {
+        if (tree != null) {
+            node = tree.root();
+        } else {
+            candidates.reset();
+        }
+        if (histograms != null) {
+            histograms.start();
+        }
+        turn = 0;
+    }
+
+    /**
+     * nextGuess
+     * picks the next guess based on the difficulty
+     * @return guess
+     */
+    public int nextGuess() {
+        if (tree != null) {
+            return tree.guess(node);
+        }
+        if (difficulty == EASY) {
+            return random.nextCode(scorer.getCodeSpace()); // any code
+        } else if (difficulty == MEDIUM) {
+            return random.choose(candidates); // any remaining candidate
+        }
+        if (book != null && turn == 0) {
+            return book.firstGuess();
+        }
+        if (book != null && turn == 1) {
+            int reply = book.reply(firstFeedback);
+            if (reply != -1) {
+                return reply;
+            }
+        }
+        if (histograms != null && histograms.isCurrent()) {
+            return histograms.selectGuess(candidates); // no scoring, costs are kept up to date
+        }
+        int count = candidates.toArray(scratch);
+        return selector.selectGuess(scratch, count, Symmetry.of(scorer.getCodeSpace(), history, turn));
+    }
+
+    /**
+     * feedback
+     * removes the candidates that don't match the feedback for a guess
+     * @param guess
+     * @param feedback feedback id
+     */
+    public void feedback(int guess, int feedback) {
+        if (tree != null) {
+            node = tree.child(node, feedback);
+            return;
+        }
+        if (turn == 0) {
+            firstFeedback = book != null && guess == book.firstGuess() ? feedback : -1; // book only knows its own opening
+        }
+        if (turn == history.length) {
+            history = Arrays.copyOf(history, turn * 2);
+        }
+        history[turn++] = guess;
+        if (histograms != null && histograms.isCurrent()) {
+            int count = candidates.prune(scorer, guess, feedback, removed);
+            histograms.update(removed, count, candidates.cardinality());
+        } else {
+            candidates.prune(scorer, guess, feedback);
+        }
+    }
+
+    /**
+     * isConsistent
+     * @return false once the feedback so far rules out every code
+     */
+    public boolean isConsistent() {
+        if (tree != null) {
+            return node != -1;
+        }
+        return !candidates.isEmpty();
+    }
+
+    public int getDifficulty() {
+        return difficulty;
+    }
+
+    public CodeRandom getRandom() {
+        return random;
+    }
+
+    /**
+     * getCandidates
+     * @return codes that are still possible, or null for a player walking a tree
+     */
+    public CandidateSet getCandidates() {
+        return candidates;
+    }
+}
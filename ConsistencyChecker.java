@@ -0,0 +1,253 @@
+/**
+ * ConsistencyChecker
+ * checks the feedback a person gives the computer as it comes in, whatever the computer's difficulty
+ * answers are passed on to the computer player, and the player's own candidates (or its place in a
+ * strategy tree) tell whether any code is left, so a contradiction shows up on the turn it is made at
+ * no cost beyond the prune the player does anyway: an answer is inconsistent when the player's set is
+ * empty (cardinality is kept, so O(1)), or for "solved" when the guess doesn't give every earlier answer
+ * for code spaces too large to list, the answers are kept as GuessConstraints instead, and an answer
+ * is inconsistent when the constraint solver finds no code that gives every answer so far; each of
+ * those searches stops after ConstraintSolver.SEARCH_NODES prefixes (the budget the sampled guesses
+ * use), and if that leaves it unknown the checker says so (isUndetermined()) rather than search on,
+ * so an answer costs at most one budget (about two seconds on one core for 10 colours and 10
+ * positions) and conflict() at most one per earlier answer
+ * once an answer is inconsistent, conflict() finds a minimal set of answers that can't all be true:
+ * answers are dropped one at a time while the rest still rule out every code (deletion search)
+ * not thread safe, one checker per game
+ */
+
+import java.util.Arrays; // import arrays
+
+public class ConsistencyChecker {
+
+    private final FeedbackScorer scorer; // feedback for the code space, or null if it is too large to list
+    private final ComputerPlayer player; // player the answers are for, or null without a scorer
+    private final GuessConstraints constraints; // answers so far without a scorer, otherwise null
+    private final ConstraintSolver solver; // looks for a code that gives every answer, without a scorer
+    private final CodeRandom random = new CodeRandom(0); // colour orders of the solver's searches
+    private final int solved; // feedback id for a correct guess
+    private int[] guesses; // guesses answered this game
+    private int[] feedbacks; // their feedback ids
+    private int turns; // number of answers
+    private int firstConflict = -1; // turn of the first inconsistent answer, -1 while consistent
+    private boolean undetermined; // a search ran out of budget before telling whether the answers fit
+
+    /**
+     * ConsistencyChecker
+     * checks the answers for one game of a player, which must be new or reset
+     * @param scorer
+     * @param player player of the scorer's code space, given every answer by accept
+     */
+    public ConsistencyChecker(FeedbackScorer scorer, ComputerPlayer player) {
+        this.scorer = scorer;
+        this.player = player;
+        this.constraints = null;
+        this.solver = null;
+        this.solved = scorer.solvedId();
+        this.guesses = new int[scorer.getSpec().getMaxTries()];
+        this.feedbacks = new int[guesses.length];
+    }
+
+    /**
+     * ConsistencyChecker
+     * for code spaces too large to list, answers are given with accept(char[], int)
+     * @param spec
+     */
+    public ConsistencyChecker(GameSpec spec) {
+        this.scorer = null;
+        this.player = null;
+        this.constraints = new GuessConstraints(spec);
+        this.solver = new ConstraintSolver(constraints);
+        this.solved = Feedback.solved(spec.getLength());
+        this.guesses = new int[spec.getMaxTries()];
+        this.feedbacks = new int[guesses.length];
+    }
+
+    /**
+     * accept
+     * records the answer for a guess, gives it to the player unless it is "solved", and checks it
+     * against every earlier answer; once an answer is inconsistent the player isn't given any more
+     * @param guess
+     * @param feedback feedback id
+     * @return false if no code gives every answer so far
+     */
+    public boolean accept(int guess, int feedback) {
+        if (turns == guesses.length) {
+            guesses = Arrays.copyOf(guesses, turns * 2);
+            feedbacks = Arrays.copyOf(feedbacks, turns * 2);
+        }
+        guesses[turns] = guess;
+        feedbacks[turns++] = feedback;
+        if (firstConflict != -1) {
+            return false;
+        }
+        boolean consistent;
+        if (feedback == solved) {
+            consistent = givesAnswers(guess, turns - 1); // the guess is the code, so it must give every earlier answer
+        } else {
+            player.feedback(guess, feedback);
+            consistent = player.isConsistent();
+        }
+        if (!consistent) {
+            firstConflict = turns - 1;
+        }
+        return consistent;
+    }
+
+    /**
+     * accept
+     * same as above, with the guess as letters; the only way to give answers without a scorer
+     * @param guess
+     * @param feedback feedback id
+     * @return false if no code gives every answer so far, or the search couldn't tell within its budget
+     */
+    public boolean accept(char[] guess, int feedback) {
+        if (constraints == null) {
+            return accept(scorer.encode(guess), feedback);
+        }
+        if (turns == feedbacks.length) {
+            feedbacks = Arrays.copyOf(feedbacks, turns * 2);
+        }
+        feedbacks[turns++] = feedback;
+        constraints.add(guess, feedback);
+        if (firstConflict != -1 || undetermined) {
+            return false;
+        }
+        int outcome = solver.check(ConstraintSolver.SEARCH_NODES, random); // an all-black answer fixes the code, so "solved" needs no special case
+        if (outcome == ConstraintSolver.NONE) {
+            firstConflict = turns - 1;
+        }
+        undetermined = outcome == ConstraintSolver.UNDETERMINED;
+        return outcome == ConstraintSolver.FOUND;
+    }
+
+    /**
+     * isConsistent
+     * @return false once the answers so far rule out every code
+     */
+    public boolean isConsistent() {
+        return firstConflict == -1;
+    }
+
+    /**
+     * isUndetermined
+     * @return true once a search without a scorer ran out of budget before telling whether any code
+     *         gives the answers so far
+     */
+    public boolean isUndetermined() {
+        return undetermined;
+    }
+
+    /**
+     * conflict
+     * finds a minimal set of answers that rule out every code together (dropping any one of them
+     * leaves a code that gives the others); the first inconsistent answer is always in it, since
+     * the answers before it were consistent
+     * without a scorer an answer is only dropped when the search proves the rest still conflict, so
+     * when a search runs out of budget the set still conflicts but may not be minimal
+     * @return turns of the conflicting answers, counted from 0 in order, or an empty array if consistent
+     */
+    public int[] conflict() {
+        if (firstConflict == -1) {
+            return new int[0];
+        }
+        int last = firstConflict;
+        CandidateSet scratch = scorer != null ? new CandidateSet(scorer.getCodeSpace()) : null; // the only set the checker builds
+        boolean[] keep = new boolean[last + 1];
+        Arrays.fill(keep, true);
+        for (int turn = 0; turn < last; turn++) {
+            keep[turn] = false;
+            keep[turn] = satisfiable(keep, last + 1, scratch); // still needed if the rest can all be true without it
+        }
+        int[] conflict = new int[last + 1];
+        int count = 0;
+        for (int turn = 0; turn <= last; turn++) {
+            if (keep[turn]) {
+                conflict[count++] = turn;
+            }
+        }
+        return Arrays.copyOf(conflict, count);
+    }
+
+    /**
+     * describeConflict
+     * @return attempts of the conflicting answers, counted from 1, e.g. "attempt 2" or "attempts 1, 3 and 4"
+     */
+    public String describeConflict() {
+        int[] conflict = conflict();
+        StringBuilder text = new StringBuilder(conflict.length == 1 ? "attempt " : "attempts ");
+        for (int i = 0; i < conflict.length; i++) {
+            if (i > 0) {
+                text.append(i == conflict.length - 1 ? " and " : ", ");
+            }
+            text.append(conflict[i] + 1);
+        }
+        return text.toString();
+    }
+
+    /**
+     * satisfiable
+     * @param keep answers to check
+     * @param count answers to look at, from the first
+     * @param scratch set to prune, null without a scorer
+     * @return true if some code gives every kept answer
+     */
+    private boolean satisfiable(boolean[] keep, int count, CandidateSet scratch) {
+        if (constraints != null) {
+            GuessConstraints kept = new GuessConstraints(constraints.getSpec());
+            for (int turn = 0; turn < count; turn++) {
+                if (keep[turn]) {
+                    kept.add(constraints.letters(constraints.guess(turn)), feedbacks[turn]);
+                }
+            }
+            return new ConstraintSolver(kept).check(ConstraintSolver.SEARCH_NODES, random) != ConstraintSolver.NONE; // kept if unknown
+        }
+        for (int turn = 0; turn < count; turn++) {
+            if (keep[turn] && feedbacks[turn] == solved) { // only the guess itself can be the code
+                int code = guesses[turn];
+                if (!scorer.getCodeSpace().isValid(code)) {
+                    return false;
+                }
+                for (int other = 0; other < count; other++) {
+                    if (keep[other] && scorer.score(code, guesses[other]) != feedbacks[other]) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+        scratch.reset();
+        for (int turn = 0; turn < count && !scratch.isEmpty(); turn++) {
+            if (keep[turn]) {
+                scratch.prune(scorer, guesses[turn], feedbacks[turn]);
+            }
+        }
+        return !scratch.isEmpty();
+    }
+
+    /**
+     * givesAnswers
+     * @param code
+     * @param count answers to look at, from the first
+     * @return true if the code is valid and gives every one of the answers
+     */
+    private boolean givesAnswers(int code, int count) {
+        if (!scorer.getCodeSpace().isValid(code)) {
+            return false;
+        }
+        for (int turn = 0; turn < count; turn++) {
+            if (scorer.score(code, guesses[turn]) != feedbacks[turn]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * getTurns
+     * @return number of answers this game
+     */
+    public int getTurns() {
+        return turns;
+    }
+}
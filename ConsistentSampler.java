@@ -0,0 +1,196 @@
+/**
+ * ConsistentSampler
+ * medium guesses for code spaces too large to list: picks a random code that is consistent with every
+ * guess so far (GuessConstraints) without ever holding the candidates, so its memory grows with the
+ * number of guesses and the code length, not with colours ^ length
+ * 1. rejection sampling: codes are drawn a position at a time from the colours each position can
+ *    still have (GuessConstraints.domains()), and a draw is given up as soon as its prefix can no
+ *    longer give some guess its black pegs or its matches; every draw that is never given up is a
+ *    consistent code, and every consistent code is equally likely
+ *    without duplicates each position picks from the colours not used yet and is kept with
+ *    probability (colours it could pick) / (most it could ever pick), which keeps the draws uniform
+ * 2. listing: once DRAW_BUDGET colours have been placed without a code (consistent codes are too rare
+ *    among the draws), the constraint solver lists up to LIST_LIMIT consistent codes within
+ *    ConstraintSolver.SEARCH_NODES prefixes; if that is all of them the pick is uniform
+ *    the pick is NOT uniform over the consistent codes when there are more than LIST_LIMIT of them or
+ *    the listing runs out of prefixes first: it is then a random one of the codes the solver found,
+ *    which sit in the parts of its subtrees it searched first (its random colour and subtree orders
+ *    spread them out, but codes in the same subtree as many others are less likely)
+ * not thread safe, one sampler per game
+ */
+
+import java.util.Arrays; // import arrays
+import java.util.List; // import list
+
+public class ConsistentSampler {
+
+    static final long DRAW_BUDGET = 2_000_000; // colours placed by rejection sampling before listing codes
+    static final int LIST_LIMIT = 4096; // consistent codes listed when rejection sampling fails
+
+    private final GameSpec spec; // rules of the game
+    private final GuessConstraints constraints; // guesses so far
+    private final ConstraintSolver solver; // lists the codes when they are too rare to draw
+    private final int length; // code length
+    private final int colours; // number of colours
+    private final int[] code; // code being drawn
+    private final int[] counts; // number of each colour in the code (or its prefix)
+    private final int[][] domains; // colours each position can have, as indices, filled by sample()
+    private final int[] domainSizes; // number of colours in each domain
+    private final int[] choices; // colours the current position can pick
+    private int[] blacks = new int[0]; // black pegs of the prefix against each guess
+    private int[] matches = new int[0]; // matches of the prefix against each guess
+    private long placed; // colours placed by the draws of the current sample
+
+    /**
+     * ConsistentSampler
+     * @param spec
+     */
+    public ConsistentSampler(GameSpec spec) {
+        this.spec = spec;
+        this.constraints = new GuessConstraints(spec);
+        this.solver = new ConstraintSolver(constraints);
+        this.length = spec.getLength();
+        this.colours = spec.getColourCount();
+        this.code = new int[length];
+        this.counts = new int[colours];
+        this.domains = new int[length][colours];
+        this.domainSizes = new int[length];
+        this.choices = new int[colours];
+    }
+
+    /**
+     * reset
+     * starts a new game
+     */
+    public void reset() {
+        constraints.clear();
+    }
+
+    /**
+     * feedback
+     * @param guess
+     * @param feedback feedback id the guess got
+     */
+    public void feedback(char[] guess, int feedback) {
+        constraints.add(guess, feedback);
+    }
+
+    /**
+     * sample
+     * @param random
+     * @return a random code consistent with every guess so far, or null if there is none
+     */
+    public char[] sample(CodeRandom random) {
+        if (!prepare()) {
+            return null;
+        }
+        placed = 0;
+        while (placed < DRAW_BUDGET) {
+            if (draw(random)) {
+                return constraints.letters(code);
+            }
+        }
+        List<int[]> codes = solver.solve(LIST_LIMIT, ConstraintSolver.SEARCH_NODES, random);
+        return codes.isEmpty() ? null : constraints.letters(codes.get(random.nextInt(codes.size())));
+    }
+
+    /**
+     * prepare
+     * fills the domains and sizes the bound arrays for the guesses so far
+     * @return false if some position has no colour left
+     */
+    private boolean prepare() {
+        boolean[][] allowed = constraints.domains();
+        for (int position = 0; position < length; position++) {
+            int n = 0;
+            for (int colour = 0; colour < colours; colour++) {
+                if (allowed[position][colour]) {
+                    domains[position][n++] = colour;
+                }
+            }
+            if (n == 0) {
+                return false;
+            }
+            domainSizes[position] = n;
+        }
+        int size = constraints.size();
+        if (blacks.length < size) {
+            blacks = new int[size * 2];
+            matches = new int[size * 2];
+        }
+        return true;
+    }
+
+    /**
+     * draw
+     * draws a code into code, giving up at the first position that breaks a bound
+     * @param random
+     * @return true if every bound held to the last position, so the code is consistent
+     */
+    private boolean draw(CodeRandom random) {
+        int size = constraints.size();
+        Arrays.fill(blacks, 0, size, 0);
+        Arrays.fill(matches, 0, size, 0);
+        Arrays.fill(counts, 0);
+        for (int position = 0; position < length; position++) {
+            int[] domain = domains[position];
+            int n = domainSizes[position]; // colours the position can pick
+            int most = n; // most it could pick with any prefix
+            if (spec.allowsDuplicates()) {
+                System.arraycopy(domain, 0, choices, 0, n);
+            } else {
+                most = Math.min(n, colours - position);
+                n = 0;
+                for (int i = 0; i < domainSizes[position]; i++) {
+                    if (counts[domain[i]] == 0) {
+                        choices[n++] = domain[i];
+                    }
+                }
+                if (random.nextInt(most) >= n) { // keeps every code of distinct colours equally likely
+                    placed++;
+                    return false;
+                }
+            }
+            int colour = choices[random.nextInt(n)];
+            code[position] = colour;
+            placed++;
+            if (!place(position, colour, length - position - 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * place
+     * adds a colour at a position of the prefix and checks the bounds of every guess: its black
+     * pegs and matches can only grow by one for each position left
+     * @param position
+     * @param colour
+     * @param left positions after this one
+     * @return true if every guess can still get its feedback
+     */
+    private boolean place(int position, int colour, int left) {
+        boolean possible = true;
+        for (int i = 0; i < constraints.size() && possible; i++) {
+            if (constraints.guess(i)[position] == colour) {
+                blacks[i]++;
+            }
+            if (counts[colour] < constraints.guessCounts(i)[colour]) {
+                matches[i]++;
+            }
+            int black = constraints.black(i), match = constraints.matches(i);
+            possible = blacks[i] <= black && blacks[i] + left >= black && matches[i] <= match && matches[i] + left >= match;
+        }
+        counts[colour]++;
+        return possible;
+    }
+
+    /**
+     * getConstraints
+     * @return guesses so far
+     */
+    public GuessConstraints getConstraints() {
+        return constraints;
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * ConsoleOutput
+ * buffered output for the console front-end: text collects in one reusable buffer and is written
+ * in one go at prompt boundaries (just before the program waits for input), when the buffer gets
+ * large and at exit, instead of one write per println
+ * quiet mode drops the menus, prompts and messages and only writes short records meant for
+ * scripts, one per line:
+ *   GUESS <code>        the computer's guess
+ *   CLUES <clues>       clues for the player's guess ("-" for none)
+ *   RESULT <outcome>    end of a game (WIN n, LOSE code, SOLVED n, LOST,
+ *                       INCONSISTENT followed by the attempts whose feedback conflicts,
+ *                       UNDETERMINED when the feedback for a code too large to list couldn't be
+ *                       checked within the search budget)
+ *   ERROR <what>        input that was rejected
+ * not thread safe, one console at a time
+ */
+
+import java.io.PrintStream; // import print stream
+
+public class ConsoleOutput {
+
+    static final int FLUSH_SIZE = 1 << 16; // characters kept before writing anyway
+
+    private final PrintStream out; // where the text goes
+    private final boolean quiet; // true to write records only
+    private final StringBuilder buffer = new StringBuilder(FLUSH_SIZE); // text not written yet
+
+    /**
+     * ConsoleOutput
+     * @param out
+     * @param quiet true to write records only
+     */
+    public ConsoleOutput(PrintStream out, boolean quiet) {
+        this.out = out;
+        this.quiet = quiet;
+    }
+
+    /**
+     * print
+     * @param text message or prompt for a person, dropped in quiet mode
+     */
+    public void print(String text) {
+        if (!quiet) {
+            buffer.append(text);
+            flushIfFull();
+        }
+    }
+
+    /**
+     * println
+     * @param text message for a person, dropped in quiet mode
+     */
+    public void println(String text) {
+        if (!quiet) {
+            buffer.append(text).append(System.lineSeparator());
+            flushIfFull();
+        }
+    }
+
+    /**
+     * record
+     * @param text line for scripts, only written in quiet mode
+     */
+    public void record(String text) {
+        if (quiet) {
+            buffer.append(text).append('\n');
+            flushIfFull();
+        }
+    }
+
+    /**
+     * flush
+     * writes everything buffered, call it before waiting for input
+     */
+    public void flush() {
+        if (buffer.length() > 0) {
+            out.append(buffer);
+            buffer.setLength(0);
+        }
+        out.flush();
+    }
+
+    /**
+     * isQuiet
+     * @return true if only records are written
+     */
+    public boolean isQuiet() {
+        return quiet;
+    }
+
+    /**
+     * flushIfFull
+     * writes the buffer once it reaches FLUSH_SIZE
+     */
+    private void flushIfFull() {
+        if (buffer.length() >= FLUSH_SIZE) {
+            flush();
+        }
+    }
+}
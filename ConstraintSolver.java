@@ -0,0 +1,397 @@
+/**
+ * ConstraintSolver
+ * finds codes that are consistent with every guess so far (GuessConstraints) in code spaces far too
+ * large to enumerate, e.g. 10 colours and 10 positions, by depth-first backtracking
+ * 1. domains: before a search every position gets the colours it can still have
+ *    (GuessConstraints.domains())
+ * 2. bounds: a prefix is cut off as soon as some guess has more black pegs or matches than its
+ *    feedback, or can no longer reach them: matches grow by at most one per position left, black
+ *    pegs only at the positions left whose domain still has the guess's colour there
+ * 3. parallel: the first levels of the tree are expanded into at least SUBTREES prefixes, and the
+ *    subtrees below them are searched in parallel; the split doesn't depend on the machine and the
+ *    results are merged in prefix order, so a seed gives the same codes whatever the number of cores
+ * memory: the constraints, the domains and one prefix state per thread, never the candidates
+ * thread safe for searching while no guesses are added
+ */
+
+import java.util.ArrayList; // import array list
+import java.util.Arrays; // import arrays
+import java.util.List; // import list
+import java.util.concurrent.atomic.AtomicBoolean; // import atomic boolean
+import java.util.concurrent.atomic.AtomicInteger; // import atomic integer
+import java.util.stream.IntStream; // import int stream
+
+public class ConstraintSolver {
+
+    static final int SUBTREES = 64; // subtrees searched in parallel, fixed so every machine splits the tree alike
+    static final int CAP_GROWTH = 4; // factor the codes wanted per subtree grows by when the first pass isn't enough
+    static final long SEARCH_NODES = 2_000_000; // prefixes a bounded search visits, for the guesses and checks of a game
+
+    // outcomes of check()
+    static final int NONE = 0; // no code gives every answer
+    static final int FOUND = 1; // some code does
+    static final int UNDETERMINED = 2; // the budget ran out first
+
+    private final GuessConstraints constraints; // guesses so far
+    private final GameSpec spec; // rules of the game
+    private final int length; // code length
+    private final int colours; // number of colours
+
+    /**
+     * ConstraintSolver
+     * @param constraints guesses so far, read at every search
+     */
+    public ConstraintSolver(GuessConstraints constraints) {
+        this.constraints = constraints;
+        this.spec = constraints.getSpec();
+        this.length = spec.getLength();
+        this.colours = spec.getColourCount();
+    }
+
+    /**
+     * solve
+     * @param random picks the colour order of each position and the order of the subtrees
+     * @return a consistent code as colour indices, or null if there is none
+     */
+    public int[] solve(CodeRandom random) {
+        List<int[]> codes = solve(1, random);
+        return codes.isEmpty() ? null : codes.get(0);
+    }
+
+    /**
+     * solve
+     * finds up to a number of consistent codes, spread over the subtrees: the first code of every
+     * subtree comes before the second code of any
+     * each subtree first looks for its share of the codes, and only the subtrees that found their
+     * share search again for more, until there are enough codes or every subtree is exhausted
+     * @param count codes wanted
+     * @param random picks the colour order of each position and the order of the subtrees
+     * @return consistent codes as colour indices, fewer than count if there aren't that many
+     */
+    public List<int[]> solve(int count, CodeRandom random) {
+        return solve(count, Long.MAX_VALUE, random);
+    }
+
+    /**
+     * solve
+     * same as above, giving up on completeness: each subtree settles for the codes it has once it
+     * has visited its share of the prefixes; only if that leaves no code at all does the search go on
+     * until it finds one
+     * @param count codes wanted
+     * @param nodeBudget prefixes to visit over all the subtrees
+     * @param random picks the colour order of each position and the order of the subtrees
+     * @return consistent codes as colour indices, fewer than count if there aren't that many or the
+     *         budget ran out
+     */
+    public List<int[]> solve(int count, long nodeBudget, CodeRandom random) {
+        AtomicBoolean cut = new AtomicBoolean(); // some subtree ran out of budget
+        List<int[]> codes = search(count, nodeBudget, random, cut);
+        if (codes.isEmpty() && cut.get()) {
+            return solve(1, random); // codes are rare, settle for the first one
+        }
+        return codes;
+    }
+
+    /**
+     * check
+     * looks for a code that gives every answer without going over a budget, so an answer that
+     * rules out every code can't start a search of the whole tree
+     * @param nodeBudget prefixes to visit over all the subtrees
+     * @param random picks the colour order of each position and the order of the subtrees
+     * @return FOUND, NONE, or UNDETERMINED if the budget ran out before either was known
+     */
+    public int check(long nodeBudget, CodeRandom random) {
+        AtomicBoolean cut = new AtomicBoolean(); // some subtree ran out of budget
+        if (!search(1, nodeBudget, random, cut).isEmpty()) {
+            return FOUND;
+        }
+        return cut.get() ? UNDETERMINED : NONE;
+    }
+
+    /**
+     * search
+     * the capped passes of solve, without its fallback
+     * @param count codes wanted
+     * @param nodeBudget prefixes to visit over all the subtrees
+     * @param random
+     * @param cut set if some subtree ran out of budget
+     * @return consistent codes as colour indices
+     */
+    private List<int[]> search(int count, long nodeBudget, CodeRandom random, AtomicBoolean cut) {
+        Problem problem = new Problem(random);
+        List<int[]> prefixes = problem.prefixes();
+        if (prefixes.isEmpty()) {
+            return new ArrayList<>();
+        }
+        int[] order = new int[prefixes.size()]; // subtrees in a random order
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        random.shuffle(order);
+
+        List<List<int[]>> found = new ArrayList<>(); // codes of each subtree, in order
+        for (int i = 0; i < order.length; i++) {
+            found.add(null);
+        }
+        AtomicInteger lastNeeded = new AtomicInteger(order.length - 1); // later subtrees can stop, earlier ones found enough
+        int cap = Math.max(1, (count + order.length - 1) / order.length); // codes each subtree looks for in this pass
+        int previousCap = 0; // a subtree with fewer codes than this was searched to the end
+        while (true) {
+            int limit = cap, searched = previousCap;
+            long budget = Math.max(1, nodeBudget / order.length); // prefixes each subtree visits
+            IntStream.range(0, order.length).parallel().forEach(task -> {
+                List<int[]> previous = found.get(task);
+                if (task > lastNeeded.get() || previous != null && previous.size() < searched) {
+                    return;
+                }
+                List<int[]> codes = new ArrayList<>();
+                Problem.Search search = problem.new Search();
+                if (search.start(prefixes.get(order[task])) && !search.run(codes, limit, budget, task, lastNeeded)) {
+                    cut.set(true);
+                }
+                found.set(task, codes);
+                if (count == 1 && !codes.isEmpty()) {
+                    lastNeeded.accumulateAndGet(task, Math::min); // the first subtree with a code decides
+                }
+            });
+            // the rounds below the cap are the same whatever the cap, so once they hold enough codes
+            // the round robin below picks what it would pick from complete subtrees
+            int total = 0;
+            boolean capped = false; // some subtree may have more codes
+            for (List<int[]> subtree : found) {
+                if (subtree != null) {
+                    total += subtree.size();
+                    capped |= subtree.size() == cap;
+                }
+            }
+            if (total >= count || !capped || cap == count) {
+                break;
+            }
+            previousCap = cap;
+            cap = (int) Math.min(count, (long) cap * CAP_GROWTH);
+        }
+
+        List<int[]> codes = new ArrayList<>(); // round robin over the subtrees, in order
+        for (int round = 0; codes.size() < count; round++) {
+            boolean any = false;
+            for (List<int[]> subtree : found) {
+                if (subtree != null && round < subtree.size() && codes.size() < count) {
+                    codes.add(subtree.get(round));
+                    any = true;
+                }
+            }
+            if (!any) {
+                break;
+            }
+        }
+        return codes;
+    }
+
+    /**
+     * getConstraints
+     * @return guesses the solver searches against
+     */
+    public GuessConstraints getConstraints() {
+        return constraints;
+    }
+
+    /**
+     * Problem
+     * the domains, bounds and colour orders of one search, shared by its threads
+     */
+    private final class Problem {
+        private final int size = constraints.size(); // number of guesses
+        private final boolean[][] domains = constraints.domains(); // colours each position can have
+        private final int[][] reach = new int[size][length + 1]; // positions from p on that can still be black for each guess
+        private final int[][] orders = new int[length][]; // colours of each position's domain, in a random order
+        private final boolean empty; // true if some position has no colour left
+
+        /**
+         * Problem
+         * @param random
+         */
+        Problem(CodeRandom random) {
+            boolean none = false;
+            for (int position = 0; position < length; position++) {
+                int[] order = new int[colours];
+                int n = 0;
+                for (int colour = 0; colour < colours; colour++) {
+                    if (domains[position][colour]) {
+                        order[n++] = colour;
+                    }
+                }
+                orders[position] = Arrays.copyOf(order, n);
+                random.shuffle(orders[position]);
+                none |= n == 0;
+            }
+            empty = none;
+            for (int i = 0; i < size; i++) {
+                int[] guess = constraints.guess(i);
+                for (int position = length - 1; position >= 0; position--) {
+                    reach[i][position] = reach[i][position + 1] + (domains[position][guess[position]] ? 1 : 0);
+                }
+            }
+        }
+
+        /**
+         * prefixes
+         * expands the first levels of the tree until there are SUBTREES subtrees
+         * @return consistent prefixes, all of the same length
+         */
+        List<int[]> prefixes() {
+            List<int[]> prefixes = new ArrayList<>();
+            if (empty) {
+                return prefixes;
+            }
+            prefixes.add(new int[0]);
+            Search search = new Search();
+            while (prefixes.size() < SUBTREES && prefixes.get(0).length < length - 1) {
+                List<int[]> longer = new ArrayList<>();
+                for (int[] prefix : prefixes) {
+                    if (!search.start(prefix)) {
+                        continue;
+                    }
+                    int position = prefix.length;
+                    for (int colour : orders[position]) {
+                        if (search.place(position, colour)) {
+                            int[] next = Arrays.copyOf(prefix, position + 1);
+                            next[position] = colour;
+                            longer.add(next);
+                        }
+                        search.unplace(position, colour);
+                    }
+                }
+                prefixes = longer;
+                if (prefixes.isEmpty()) {
+                    break;
+                }
+            }
+            return prefixes;
+        }
+
+        /**
+         * Search
+         * the state of one thread's search: the prefix, its colour counts, and the black pegs and
+         * matches it has against each guess
+         */
+        final class Search {
+            private final int[] code = new int[length]; // prefix being built
+            private final int[] counts = new int[colours]; // number of each colour in the prefix
+            private final int[] blacks = new int[size]; // black pegs of the prefix against each guess
+            private final int[] matches = new int[size]; // matches of the prefix against each guess
+            private int placed; // length of the prefix
+            private long nodes; // prefixes visited by run()
+
+            /**
+             * start
+             * clears the state and places a prefix
+             * @param prefix
+             * @return false if the prefix breaks a bound
+             */
+            boolean start(int[] prefix) {
+                Arrays.fill(counts, 0);
+                Arrays.fill(blacks, 0);
+                Arrays.fill(matches, 0);
+                boolean possible = true;
+                for (int position = 0; position < prefix.length; position++) {
+                    possible &= place(position, prefix[position]);
+                    code[position] = prefix[position];
+                }
+                placed = prefix.length;
+                return possible;
+            }
+
+            /**
+             * run
+             * searches the subtree below the started prefix
+             * @param codes filled with the consistent codes found
+             * @param limit codes wanted
+             * @param budget prefixes to visit before settling for the codes found
+             * @param task index of the subtree
+             * @param lastNeeded subtrees after this one can stop
+             * @return false if the budget ran out
+             */
+            boolean run(List<int[]> codes, int limit, long budget, int task, AtomicInteger lastNeeded) {
+                nodes = 0;
+                search(placed, codes, limit, budget, task, lastNeeded);
+                return nodes <= budget;
+            }
+
+            /**
+             * search
+             * @return false once the subtree should stop
+             */
+            private boolean search(int position, List<int[]> codes, int limit, long budget, int task, AtomicInteger lastNeeded) {
+                if (position == length) {
+                    codes.add(code.clone());
+                    return codes.size() < limit;
+                }
+                if (task > lastNeeded.get()) {
+                    return false; // an earlier subtree already has the code
+                }
+                if (++nodes > budget) {
+                    return false;
+                }
+                for (int colour : orders[position]) {
+                    boolean possible = place(position, colour);
+                    if (possible) {
+                        code[position] = colour;
+                        possible = search(position + 1, codes, limit, budget, task, lastNeeded);
+                        unplace(position, colour);
+                        if (!possible) {
+                            return false;
+                        }
+                    } else {
+                        unplace(position, colour);
+                    }
+                }
+                return true;
+            }
+
+            /**
+             * place
+             * adds a colour to the prefix and checks every guess's bounds
+             * @param position
+             * @param colour
+             * @return true if every guess can still get its feedback (undo with unplace either way)
+             */
+            boolean place(int position, int colour) {
+                boolean possible = spec.allowsDuplicates() || counts[colour] == 0;
+                int left = length - position - 1; // positions after this one
+                for (int i = 0; i < size; i++) {
+                    if (constraints.guess(i)[position] == colour) {
+                        blacks[i]++;
+                    }
+                    if (counts[colour] < constraints.guessCounts(i)[colour]) {
+                        matches[i]++;
+                    }
+                    int black = constraints.black(i), match = constraints.matches(i);
+                    if (blacks[i] > black || blacks[i] + reach[i][position + 1] < black
+                            || matches[i] > match || matches[i] + left < match) {
+                        possible = false; // keeps going so unplace can undo every guess
+                    }
+                }
+                counts[colour]++;
+                return possible;
+            }
+
+            /**
+             * unplace
+             * takes a colour placed by place() off the prefix
+             * @param position
+             * @param colour
+             */
+            void unplace(int position, int colour) {
+                counts[colour]--;
+                for (int i = 0; i < size; i++) {
+                    if (constraints.guess(i)[position] == colour) {
+                        blacks[i]--;
+                    }
+                    if (counts[colour] < constraints.guessCounts(i)[colour]) {
+                        matches[i]--;
+                    }
+                }
+            }
+        }
+    }
+}
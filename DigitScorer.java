@@ -0,0 +1,25 @@
+/**
+ * DigitScorer
+ * scores codes by splitting both indices into digits on every call
+ * the fallback for specs with more than 16 colours or more than 15 pegs, where codes don't pack into a long
+ */
+
+public class DigitScorer extends FeedbackScorer {
+
+    /**
+     * DigitScorer
+     * @param spec
+     */
+    public DigitScorer(GameSpec spec) {
+        super(spec);
+    }
+
+    @Override
+    public int score(int secret, int guess) {
+        int[] secretDigits = new int[length];
+        int[] guessDigits = new int[length];
+        codeSpace.digits(secret, secretDigits);
+        codeSpace.digits(guess, guessDigits);
+        return computeFeedback(secretDigits, guessDigits, new int[spec.getColourCount()], new int[spec.getColourCount()]);
+    }
+}
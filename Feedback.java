@@ -0,0 +1,125 @@
+/**
+ * Feedback
+ * the int feedback id used by every mode: black * (length + 1) + white
+ * "bbww" style strings are only for the user interface, parse() turns typed feedback into an id
+ * and toString() turns an id back into a string for display
+ * works without a scorer, so front-ends can score codes that are too large to enumerate
+ */
+
+public final class Feedback {
+
+    private Feedback() {
+    }
+
+    /**
+     * id
+     * @param black pegs with the right colour in the right position
+     * @param white pegs with the right colour in the wrong position
+     * @param length length of code
+     * @return feedback id
+     */
+    public static int id(int black, int white, int length) {
+        return black * (length + 1) + white;
+    }
+
+    /**
+     * black
+     * @param id
+     * @param length
+     * @return number of black pegs
+     */
+    public static int black(int id, int length) {
+        return id / (length + 1);
+    }
+
+    /**
+     * white
+     * @param id
+     * @param length
+     * @return number of white pegs
+     */
+    public static int white(int id, int length) {
+        return id % (length + 1);
+    }
+
+    /**
+     * solved
+     * @param length
+     * @return feedback id for a correct guess (all black)
+     */
+    public static int solved(int length) {
+        return length * (length + 1);
+    }
+
+    /**
+     * score
+     * scores two codes given as characters, for codes that aren't part of an enumerated code space
+     * @param secretCode
+     * @param guess
+     * @return feedback id
+     */
+    public static int score(char[] secretCode, char[] guess) {
+        int black = 0, matches = 0;
+        boolean[] used = new boolean[guess.length]; // guess pegs already matched
+        for (int i = 0; i < secretCode.length; i++) {
+            if (i < guess.length && secretCode[i] == guess[i]) {
+                black++;
+            }
+        }
+        for (char c : secretCode) {
+            for (int j = 0; j < guess.length; j++) {
+                if (!used[j] && guess[j] == c) {
+                    used[j] = true;
+                    matches++;
+                    break;
+                }
+            }
+        }
+        return id(black, matches - black, secretCode.length);
+    }
+
+    /**
+     * isValid
+     * @param feedback
+     * @param length
+     * @return true if the feedback only has 'b' and 'w' and isn't longer than the code
+     */
+    public static boolean isValid(String feedback, int length) {
+        if (feedback.length() > length) {
+            return false;
+        }
+        for (int i = 0; i < feedback.length(); i++) {
+            if (feedback.charAt(i) != 'b' && feedback.charAt(i) != 'w') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * parse
+     * converts a "bbww" style string (in any order, other characters count as white) to its id
+     * @param feedback
+     * @param length
+     * @return feedback id
+     */
+    public static int parse(String feedback, int length) {
+        int black = 0;
+        for (int i = 0; i < feedback.length(); i++) {
+            if (feedback.charAt(i) == 'b') {
+                black++;
+            }
+        }
+        return id(black, feedback.length() - black, length);
+    }
+
+    /**
+     * toString
+     * @param id
+     * @param length
+     * @return "bbww" style string, black pegs first
+     */
+    public static String toString(int id, int length) {
+        return "b".repeat(black(id, length)) + "w".repeat(white(id, length));
+    }
+}
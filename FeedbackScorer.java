@@ -0,0 +1,213 @@
+/**
+ * FeedbackScorer
+ * scores guesses against secret codes for one game spec, working on CodeSpace indices
+ * feedback is a small int id: black * (length + 1) + white (see Feedback)
+ * forSpec() picks the fastest scorer that fits the spec:
+ * 1. FeedbackTable, a precomputed table for small code spaces (classic GRBYOP/4)
+ * 2. VectorFeedbackScorer, PackedScorer with batches scored by the Vector API, when the
+ *    jdk.incubator.vector module is present (run with --add-modules jdk.incubator.vector)
+ * 3. PackedScorer, nibble-packed codes for up to 16 colours and 15 pegs
+ * 4. DigitScorer, plain digit comparison for anything else
+ * scoreAll() scores one guess against many codes, for the pruning and partition loops
+ * scorers are immutable, so one scorer can be shared by every thread
+ */
+
+import java.util.Arrays; // import arrays
+
+public abstract class FeedbackScorer {
+
+    protected final GameSpec spec; // rules of the game
+    protected final CodeSpace codeSpace; // numbering of the codes
+    protected final int length; // length of code
+    private final String[] feedbackStrings; // "bbww" style string for each feedback id
+
+    /**
+     * FeedbackScorer
+     * @param spec
+     */
+    protected FeedbackScorer(GameSpec spec) {
+        this.spec = spec;
+        this.codeSpace = new CodeSpace(spec);
+        this.length = spec.getLength();
+        this.feedbackStrings = new String[spec.getFeedbackCount()];
+        for (int black = 0; black <= length; black++) {
+            for (int white = 0; black + white <= length; white++) {
+                int id = Feedback.id(black, white, length);
+                feedbackStrings[id] = Feedback.toString(id, length);
+            }
+        }
+    }
+
+    /**
+     * forSpec
+     * creates the fastest scorer for a spec
+     * @param spec
+     * @return scorer
+     */
+    public static FeedbackScorer forSpec(GameSpec spec) {
+        if (!spec.isEnumerable()) {
+            throw new IllegalArgumentException("code space is too large to score by index: " + spec);
+        }
+        if (spec.getCodeCount() <= FeedbackTable.MAX_TABLE_CODES && spec.getFeedbackCount() <= Byte.MAX_VALUE) {
+            return new FeedbackTable(spec);
+        }
+        if (spec.getColourCount() <= PackedScorer.MAX_COLOURS && spec.getLength() <= PackedScorer.MAX_LENGTH) {
+            if (spec.getCodeCount() <= PackedScorer.MAX_PACKED_CODES) {
+                try {
+                    return new VectorFeedbackScorer(spec);
+                } catch (LinkageError e) {
+                    // vector module not added at runtime, score one code at a time
+                }
+            }
+            return new PackedScorer(spec);
+        }
+        return new DigitScorer(spec);
+    }
+
+    /**
+     * score
+     * returns the feedback id for a guess against a secret code
+     * @param secret
+     * @param guess
+     * @return feedback id
+     */
+    public abstract int score(int secret, int guess);
+
+    /**
+     * scoreAll
+     * scores one guess against a run of codes, feedback[i] is the feedback id for codes[from + i]
+     * @param guess
+     * @param codes
+     * @param from first entry of codes to score
+     * @param count number of codes to score
+     * @param feedback filled with count feedback ids
+     */
+    public void scoreAll(int guess, int[] codes, int from, int count, int[] feedback) {
+        for (int i = 0; i < count; i++) {
+            feedback[i] = score(codes[from + i], guess);
+        }
+    }
+
+    /**
+     * feedback
+     * scores two codes given as characters, for front-ends that don't use indices
+     * codes that aren't part of the code space are scored character by character
+     * @param secretCode
+     * @param guess
+     * @return feedback id
+     */
+    public int feedback(char[] secretCode, char[] guess) {
+        int secretIndex = codeSpace.encode(secretCode);
+        int guessIndex = codeSpace.encode(guess);
+        if (secretIndex != -1 && guessIndex != -1) {
+            return score(secretIndex, guessIndex);
+        }
+        return Feedback.score(secretCode, guess);
+    }
+
+    /**
+     * getFeedback
+     * same as feedback(), as a "bbww" style string for display
+     * @param secretCode
+     * @param guess
+     * @return feedback string
+     */
+    public String getFeedback(char[] secretCode, char[] guess) {
+        return feedbackStrings[feedback(secretCode, guess)];
+    }
+
+    /**
+     * encode
+     * @param code
+     * @return index of the code, or -1 if it is not part of the code space
+     */
+    public int encode(char[] code) {
+        return codeSpace.encode(code);
+    }
+
+    /**
+     * decode
+     * @param index
+     * @return code
+     */
+    public char[] decode(int index) {
+        return codeSpace.decode(index);
+    }
+
+    /**
+     * feedbackString
+     * returns the "bbww" style string for a feedback id, without allocating
+     * @param feedback
+     * @return feedback string
+     */
+    public String feedbackString(int feedback) {
+        return feedbackStrings[feedback];
+    }
+
+    /**
+     * feedbackId
+     * converts a "bbww" style string (in any order) to its feedback id
+     * @param feedback
+     * @return feedback id
+     */
+    public int feedbackId(String feedback) {
+        return Feedback.parse(feedback, length);
+    }
+
+    /**
+     * solvedId
+     * returns the feedback id for a correct guess (all black)
+     * @return feedback id
+     */
+    public int solvedId() {
+        return Feedback.solved(length);
+    }
+
+    public int getCodeCount() {
+        return codeSpace.size();
+    }
+
+    public int getFeedbackCount() {
+        return feedbackStrings.length;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public GameSpec getSpec() {
+        return spec;
+    }
+
+    public CodeSpace getCodeSpace() {
+        return codeSpace;
+    }
+
+    /**
+     * computeFeedback
+     * scores a guess against a secret code given as digits
+     * white pegs are the per-colour minimum of both codes, minus the black pegs
+     * @param secret
+     * @param guess
+     * @param secretCounts scratch array, one entry per colour
+     * @param guessCounts scratch array, one entry per colour
+     * @return feedback id
+     */
+    static int computeFeedback(int[] secret, int[] guess, int[] secretCounts, int[] guessCounts) {
+        int black = 0;
+        Arrays.fill(secretCounts, 0);
+        Arrays.fill(guessCounts, 0);
+        for (int i = 0; i < secret.length; i++) {
+            if (secret[i] == guess[i]) {
+                black++;
+            }
+            secretCounts[secret[i]]++;
+            guessCounts[guess[i]]++;
+        }
+        int matches = 0;
+        for (int c = 0; c < secretCounts.length; c++) {
+            matches += Math.min(secretCounts[c], guessCounts[c]);
+        }
+        return black * (secret.length + 1) + (matches - black);
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * FeedbackTable
+ * precomputed feedback for every (secret, guess) pair of a small code space
+ * codes are the integer indices of a CodeSpace, e.g. "GGGG" = 0 and "PPPP" = 1295 for GRBYOP/4
+ * feedback is stored as a one byte id: black * (length + 1) + white
+ */
+
+public class FeedbackTable extends FeedbackScorer {
+
+    // largest code space that gets a full table, 4096 x 4096 = 16MB
+    static final int MAX_TABLE_CODES = 4096;
+
+    private final int codeCount; // number of codes, colours ^ length
+    private final byte[] table; // feedback ids, row = secret, column = guess
+
+    /**
+     * FeedbackTable
+     * builds the table for all codes of a spec
+     * @param spec
+     */
+    public FeedbackTable(GameSpec spec) {
+        super(spec);
+        if (spec.getCodeCount() > MAX_TABLE_CODES) {
+            throw new IllegalArgumentException("code space is too large for a feedback table: " + spec);
+        }
+        if (spec.getFeedbackCount() > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("code length is too large for byte feedback ids: " + spec);
+        }
+
+        this.codeCount = codeSpace.size();
+        this.table = new byte[codeCount * codeCount];
+
+        // feedback is symmetric, so only the upper triangle is scored
+        int colours = spec.getColourCount();
+        int[][] digits = new int[codeCount][];
+        int[] current = new int[length]; // digits of the code being visited, starts at code 0
+        for (int code = 0; code < codeCount; code++) {
+            digits[code] = current.clone();
+            CodeSpace.next(current, colours);
+        }
+        int[] secretCounts = new int[colours];
+        int[] guessCounts = new int[colours];
+        for (int secret = 0; secret < codeCount; secret++) {
+            for (int guess = secret; guess < codeCount; guess++) {
+                byte feedback = (byte) computeFeedback(digits[secret], digits[guess], secretCounts, guessCounts);
+                table[secret * codeCount + guess] = feedback;
+                table[guess * codeCount + secret] = feedback;
+            }
+        }
+    }
+
+    @Override
+    public int score(int secret, int guess) {
+        return table[secret * codeCount + guess];
+    }
+
+    @Override
+    public void scoreAll(int guess, int[] codes, int from, int count, int[] feedback) {
+        int row = guess * codeCount; // the table is symmetric, so the guess's row holds every code's feedback
+        for (int i = 0; i < count; i++) {
+            feedback[i] = table[row + codes[from + i]];
+        }
+    }
+}
@@ -0,0 +1,230 @@
+/**
+ * GameRecord
+ * everything needed to play a game again: the spec, who guessed, the game's seed, and each guess
+ * with its feedback id
+ * the seed is the only randomness of a game: the server's secret code is the first code drawn from
+ * it (CodeRandom.nextCode(spec)) and the computer player's easy and medium choices come from it, so
+ * verify() can rebuild the game and check that it still plays out the same way
+ * binary layout, as written to a ReplayLog (big-endian):
+ *   int   size of the rest of the record
+ *   byte  kind (PLAY or SOLVE), byte difficulty, byte strategy, byte 1 if duplicates are allowed
+ *   short length, short tries, byte number of colours, colours as bytes
+ *   long  seed
+ *   short turns, then for each turn: length bytes of colour indices, short feedback id
+ * not thread safe, a record belongs to one game until it is written
+ */
+
+import java.nio.ByteBuffer; // import byte buffer
+import java.nio.charset.StandardCharsets; // import charsets
+import java.util.Arrays; // import arrays
+
+public final class GameRecord {
+
+    public static final int PLAY = 0; // the server sets the code and the player guesses
+    public static final int SOLVE = 1; // the player sets the code and the computer guesses
+    static final int MAX_COLOURS = 255; // colour indices are stored in a byte
+
+    private final GameSpec spec; // rules of the game
+    private final int kind; // PLAY or SOLVE
+    private final int difficulty; // computer's difficulty when it guesses, 0 when the player guesses
+    private final GuessStrategy strategy; // how a hard computer picks its guesses
+    private final long seed; // seed of the game's random stream
+    private byte[] guesses; // colour indices of every guess, length per turn
+    private short[] feedbacks; // feedback id of every guess
+    private int turns; // guesses so far
+
+    /**
+     * GameRecord
+     * @param spec
+     * @param kind PLAY or SOLVE
+     * @param difficulty ComputerPlayer.EASY, MEDIUM or HARD when the computer guesses, otherwise 0
+     * @param strategy how a hard computer picks its guesses
+     * @param seed seed of the game's random stream
+     */
+    public GameRecord(GameSpec spec, int kind, int difficulty, GuessStrategy strategy, long seed) {
+        if (!fits(spec)) {
+            throw new IllegalArgumentException("too many colours to record: " + spec);
+        }
+        this.spec = spec;
+        this.kind = kind;
+        this.difficulty = difficulty;
+        this.strategy = strategy;
+        this.seed = seed;
+        this.guesses = new byte[spec.getLength() * spec.getMaxTries()];
+        this.feedbacks = new short[spec.getMaxTries()];
+    }
+
+    /**
+     * fits
+     * @param spec
+     * @return true if games of the spec can be recorded (colour indices fit in a byte)
+     */
+    public static boolean fits(GameSpec spec) {
+        return spec.getColourCount() <= MAX_COLOURS && spec.getAlphabet().chars().allMatch(c -> c < 128);
+    }
+
+    /**
+     * add
+     * records a guess and the feedback it got
+     * @param guess code, upper case letters of the spec
+     * @param feedback feedback id
+     */
+    public void add(char[] guess, int feedback) {
+        int length = spec.getLength();
+        if (turns == feedbacks.length) {
+            feedbacks = Arrays.copyOf(feedbacks, turns * 2);
+            guesses = Arrays.copyOf(guesses, turns * 2 * length);
+        }
+        for (int i = 0; i < length; i++) {
+            guesses[turns * length + i] = (byte) spec.getAlphabet().indexOf(guess[i]);
+        }
+        feedbacks[turns++] = (short) feedback;
+    }
+
+    /**
+     * guess
+     * @param turn counted from 0
+     * @return the guess made on the turn
+     */
+    public char[] guess(int turn) {
+        char[] code = new char[spec.getLength()];
+        for (int i = 0; i < code.length; i++) {
+            code[i] = spec.getAlphabet().charAt(guesses[turn * code.length + i] & 0xFF);
+        }
+        return code;
+    }
+
+    /**
+     * feedback
+     * @param turn counted from 0
+     * @return feedback id the guess got
+     */
+    public int feedback(int turn) {
+        return feedbacks[turn];
+    }
+
+    /**
+     * verify
+     * plays the game again from its seed, with the same players a GameService gives its sessions
+     * @param service service for the record's spec
+     * @return null if the game played out the same way, otherwise where it first differs
+     */
+    public String verify(GameService service) {
+        if (kind == PLAY) {
+            char[] secret = new CodeRandom(seed).nextCode(spec);
+            for (int turn = 0; turn < turns; turn++) {
+                int feedback = Feedback.score(secret, guess(turn));
+                if (feedback != feedbacks[turn]) {
+                    return "turn " + (turn + 1) + ": feedback " + Feedback.toString(feedback, spec.getLength())
+                            + ", recorded " + Feedback.toString(feedbacks[turn], spec.getLength());
+                }
+            }
+            return null;
+        }
+        FeedbackScorer scorer = service.getScorer();
+        if (scorer == null) {
+            return verifySampled();
+        }
+        ComputerPlayer player = service.newPlayer(difficulty, strategy, new CodeRandom(seed));
+        player.reset();
+        for (int turn = 0; turn < turns; turn++) {
+            int guess = player.nextGuess();
+            int recorded = scorer.encode(guess(turn));
+            if (guess != recorded) {
+                return "turn " + (turn + 1) + ": guess " + new String(scorer.decode(guess)) + ", recorded " + new String(guess(turn));
+            }
+            if (turn + 1 < turns) {
+                player.feedback(guess, feedbacks[turn]);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * verifySampled
+     * same as verify, for a spec with too many codes to list, with the console's SampledPlayer
+     * @return null if the game played out the same way, otherwise where it first differs
+     */
+    private String verifySampled() {
+        SampledPlayer player = new SampledPlayer(spec, difficulty, strategy, new CodeRandom(seed));
+        for (int turn = 0; turn < turns; turn++) {
+            char[] guess = player.nextGuess();
+            if (guess == null || !Arrays.equals(guess, guess(turn))) {
+                return "turn " + (turn + 1) + ": guess " + (guess != null ? new String(guess) : "none") + ", recorded " + new String(guess(turn));
+            }
+            if (turn + 1 < turns) {
+                player.feedback(guess, feedbacks[turn]);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * size
+     * @return bytes written by write(), including the size field
+     */
+    public int size() {
+        return 4 + 8 + 1 + spec.getColourCount() + 8 + 2 + turns * (spec.getLength() + 2);
+    }
+
+    /**
+     * write
+     * @param buffer with at least size() bytes left
+     */
+    public void write(ByteBuffer buffer) {
+        buffer.putInt(size() - 4);
+        buffer.put((byte) kind).put((byte) difficulty).put((byte) (strategy != null ? strategy.ordinal() : 0));
+        buffer.put((byte) (spec.allowsDuplicates() ? 1 : 0));
+        buffer.putShort((short) spec.getLength()).putShort((short) spec.getMaxTries());
+        buffer.put((byte) spec.getColourCount()).put(spec.getAlphabet().getBytes(StandardCharsets.US_ASCII));
+        buffer.putLong(seed);
+        buffer.putShort((short) turns);
+        int length = spec.getLength();
+        for (int turn = 0; turn < turns; turn++) {
+            buffer.put(guesses, turn * length, length).putShort(feedbacks[turn]);
+        }
+    }
+
+    /**
+     * read
+     * @param buffer positioned after a record's size field, the record is consumed
+     * @return the record
+     */
+    public static GameRecord read(ByteBuffer buffer) {
+        int kind = buffer.get();
+        int difficulty = buffer.get();
+        GuessStrategy strategy = GuessStrategy.values()[buffer.get()];
+        boolean duplicates = buffer.get() == 1;
+        int length = buffer.getShort();
+        int maxTries = buffer.getShort();
+        byte[] alphabet = new byte[buffer.get() & 0xFF];
+        buffer.get(alphabet);
+        GameSpec spec = new GameSpec(new String(alphabet, StandardCharsets.US_ASCII), length, maxTries, duplicates);
+        GameRecord record = new GameRecord(spec, kind, difficulty, kind == SOLVE ? strategy : null, buffer.getLong());
+        int turns = buffer.getShort();
+        record.guesses = new byte[Math.max(record.guesses.length, turns * length)];
+        record.feedbacks = new short[Math.max(record.feedbacks.length, turns)];
+        for (int turn = 0; turn < turns; turn++) {
+            buffer.get(record.guesses, turn * length, length);
+            record.feedbacks[turn] = buffer.getShort();
+        }
+        record.turns = turns;
+        return record;
+    }
+
+    public GameSpec getSpec() {
+        return spec;
+    }
+
+    public int getKind() {
+        return kind;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getTurns() {
+        return turns;
+    }
+}
@@ -0,0 +1,247 @@
+/**
+ * GameServer
+ * hosts many games at once, one virtual thread per session, so a session can block on its next
+ * line without holding a platform thread; every session shares one GameService (scorer, books,
+ * trees), so each one costs little more than its thread, its buffers and its player state
+ * 1. socket mode: one session per connection, lines in and out as in GameSession
+ * 2. stdin mode: sessions multiplexed over standard input, each line is "<session id> <text>"
+ *    and each line of output starts with its session id; a new id, or a line for an id whose
+ *    session quit, starts a new session
+ * --log appends every game to a replay log (see ReplayLog), written out when the server stops
+ * usage: java GameServer [--port N | --stdin] [--seed N] [--log file] [--colours X --length N --tries N --no-duplicates]
+ */
+
+import java.io.BufferedReader; // import buffered reader
+import java.io.IOException; // import io exception
+import java.io.InputStreamReader; // import input stream reader
+import java.io.OutputStream; // import output stream
+import java.io.PrintStream; // import print stream
+import java.net.InetAddress; // import inet address
+import java.net.ServerSocket; // import server socket
+import java.net.Socket; // import socket
+import java.nio.charset.StandardCharsets; // import charsets
+import java.util.Arrays; // import arrays
+import java.util.concurrent.BlockingQueue; // import blocking queue
+import java.util.concurrent.ConcurrentHashMap; // import concurrent hash map
+import java.util.concurrent.ExecutorService; // import executor service
+import java.util.concurrent.Executors; // import executors
+import java.util.concurrent.LinkedBlockingQueue; // import linked blocking queue
+import java.util.concurrent.atomic.AtomicInteger; // import atomic integer
+
+public class GameServer {
+
+    static final int DEFAULT_PORT = 4040;
+    private static final int BUFFER_SIZE = 256; // per connection, lines are short
+    private static final int BACKLOG = 4096; // connections waiting to be accepted
+
+    private final GameService service; // shared by every session
+    private final AtomicInteger active = new AtomicInteger(); // sessions running now
+
+    /**
+     * GameServer
+     * @param service
+     */
+    public GameServer(GameService service) {
+        this.service = service;
+    }
+
+    /**
+     * serve
+     * accepts connections until the socket is closed, starting a session for each one
+     * @param server
+     */
+    public void serve(ServerSocket server) throws IOException {
+        try (ExecutorService sessions = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (!server.isClosed()) {
+                Socket socket = server.accept();
+                sessions.submit(() -> play(socket));
+            }
+        }
+    }
+
+    /**
+     * play
+     * runs one session over a connection until the player quits or disconnects
+     * @param socket
+     */
+    private void play(Socket socket) {
+        active.incrementAndGet();
+        GameSession session = service.newSession();
+        try (socket) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII), BUFFER_SIZE);
+            OutputStream out = socket.getOutputStream();
+            StringBuilder text = new StringBuilder();
+            session.start(text);
+            send(text, out);
+            String line;
+            while (!session.isClosed() && (line = in.readLine()) != null) {
+                session.handle(line, text);
+                send(text, out);
+            }
+        } catch (IOException e) {
+            // connection dropped, the session just ends
+        } finally {
+            session.close();
+            active.decrementAndGet();
+        }
+    }
+
+    /**
+     * send
+     * writes and clears the text
+     * @param text
+     * @param out
+     */
+    private static void send(StringBuilder text, OutputStream out) throws IOException {
+        out.write(text.toString().getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        text.setLength(0);
+    }
+
+    /**
+     * serveMultiplexed
+     * reads "<session id> <text>" lines until the input ends, each session on its own virtual thread
+     * @param input
+     * @param output lines are written whole, prefixed with the session id
+     */
+    public void serveMultiplexed(BufferedReader input, PrintStream output) throws IOException, InterruptedException {
+        ConcurrentHashMap<String, BlockingQueue<Line>> inputs = new ConcurrentHashMap<>(); // by session id
+        try (ExecutorService sessions = Executors.newVirtualThreadPerTaskExecutor()) {
+            String line;
+            while ((line = input.readLine()) != null) {
+                int space = line.indexOf(' ');
+                String id = space < 0 ? line : line.substring(0, space);
+                if (id.isEmpty()) {
+                    continue;
+                }
+                Line next = new Line(space < 0 ? "" : line.substring(space + 1));
+                // queued under the map's lock for the id, so a session that ends can't remove its queue
+                // between this line picking the queue and landing in it
+                inputs.compute(id, (key, queue) -> {
+                    if (queue == null) {
+                        BlockingQueue<Line> lines = new LinkedBlockingQueue<>();
+                        sessions.submit(() -> playQueued(key, lines, inputs, output));
+                        queue = lines;
+                    }
+                    queue.add(next);
+                    return queue;
+                });
+            }
+            for (BlockingQueue<Line> queue : inputs.values()) {
+                queue.put(Line.END);
+            }
+        }
+    }
+
+    /**
+     * playQueued
+     * runs multiplexed sessions for one id until the input ends: a session runs until the player
+     * quits, and lines that came in after the quit go to a new session with the same id
+     * @param id
+     * @param lines input lines of this id
+     * @param inputs every id's input, removed from it once a session quits with no lines left
+     * @param output
+     */
+    private void playQueued(String id, BlockingQueue<Line> lines, ConcurrentHashMap<String, BlockingQueue<Line>> inputs, PrintStream output) {
+        boolean more = true; // lines are left for another session
+        while (more) {
+            active.incrementAndGet();
+            GameSession session = service.newSession();
+            try {
+                StringBuilder text = new StringBuilder();
+                session.start(text);
+                print(id, text, output);
+                while (true) {
+                    Line line = lines.take();
+                    if (line == Line.END) {
+                        more = false;
+                        break;
+                    }
+                    session.handle(line.text, text);
+                    if (session.isClosed()) {
+                        // the queue goes before the quit is acknowledged, and only if nothing is waiting in it,
+                        // so every later line either reaches a new session or is still here for the next one
+                        more = inputs.computeIfPresent(id, (key, queue) -> queue == lines && lines.isEmpty() ? null : queue) != null
+                                && lines.peek() != Line.END;
+                        print(id, text, output);
+                        break;
+                    }
+                    print(id, text, output);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                more = false;
+            } finally {
+                session.close();
+                active.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * print
+     * writes and clears the text, each line prefixed with the session id
+     * @param id
+     * @param text
+     * @param output
+     */
+    private static void print(String id, StringBuilder text, PrintStream output) {
+        StringBuilder prefixed = new StringBuilder(text.length() + 8 * id.length());
+        int start = 0;
+        for (int end = text.indexOf("\n"); end != -1; start = end + 1, end = text.indexOf("\n", start)) {
+            prefixed.append(id).append(' ').append(text, start, end + 1);
+        }
+        synchronized (output) { // sessions' lines don't interleave
+            output.print(prefixed);
+            output.flush();
+        }
+        text.setLength(0);
+    }
+
+    /**
+     * getActiveSessions
+     * @return number of sessions running now
+     */
+    public int getActiveSessions() {
+        return active.get();
+    }
+
+    // main method
+    public static void main(String[] args) throws IOException, InterruptedException {
+        GameSpec spec = GameSpec.fromArgs(args);
+        String seed = Simulation.option(args, "--seed");
+        CodeRandom random = seed != null ? new CodeRandom(Long.parseLong(seed)) : new CodeRandom();
+        GameService service = new GameService(spec, random);
+        GameServer server = new GameServer(service);
+        ReplayLog.openFor(service, Simulation.option(args, "--log"));
+
+        if (Arrays.asList(args).contains("--stdin")) {
+            server.serveMultiplexed(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.US_ASCII)), System.out);
+            return;
+        }
+        String port = Simulation.option(args, "--port");
+        try (ServerSocket socket = new ServerSocket(port != null ? Integer.parseInt(port) : DEFAULT_PORT, BACKLOG, InetAddress.getLoopbackAddress())) {
+            System.out.println("Codebreaker server for " + spec + " on port " + socket.getLocalPort());
+            server.serve(socket);
+        }
+    }
+
+    /**
+     * Line
+     * a line of a multiplexed session's input, or the end of the input
+     */
+    private static final class Line {
+
+        static final Line END = new Line(null); // no more input, the only line without text
+
+        final String text; // the line without its session id
+
+        /**
+         * Line
+         * @param text
+         */
+        Line(String text) {
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ * GameService
+ * what every session of a game server shares: the spec, the feedback scorer, the opening books
+ * and the strategy trees; all of them are immutable, so a session only owns its own player state
+ * hard players walk a strategy tree (an exported tree file, or one built in memory for specs small
+ * enough for a feedback table); for larger specs they search, with an opening book if one has been
+ * exported, without partition histograms, so thousands of sessions don't each hold guesses x
+ * feedback ids ints
+ * with a replay log set, sessions append a GameRecord for every game they end
+ * thread safe, one service for every session of a server
+ */
+
+import java.io.IOException; // import io exception
+import java.util.Optional; // import optional
+import java.util.concurrent.ConcurrentHashMap; // import concurrent hash map
+
+public class GameService {
+
+    private final GameSpec spec; // rules of every game
+    private final FeedbackScorer scorer; // feedback for the code space, null if it is too large to enumerate
+    private final CodeRandom random; // root stream, split once for each session
+    private final ConcurrentHashMap<GuessStrategy, Optional<StrategyTree>> trees = new ConcurrentHashMap<>(); // by strategy, empty if too large
+    private volatile ReplayLog log; // where finished games are recorded, or null
+
+    /**
+     * GameService
+     * @param spec
+     * @param random root random stream, split for each session
+     */
+    public GameService(GameSpec spec, CodeRandom random) {
+        this.spec = spec;
+        this.scorer = spec.isEnumerable() ? FeedbackScorer.forSpec(spec) : null;
+        this.random = random;
+    }
+
+    /**
+     * newSession
+     * @return a session at its menu, with its own random stream
+     */
+    public GameSession newSession() {
+        return new GameSession(this, split());
+    }
+
+    /**
+     * split
+     * @return an independent random stream for a new session or connection
+     */
+    synchronized CodeRandom split() {
+        return random.split();
+    }
+
+    /**
+     * newPlayer
+     * @param difficulty ComputerPlayer.EASY, MEDIUM or HARD
+     * @param strategy how hard players pick their guesses
+     * @param random the session's random stream
+     * @return player sharing the service's scorer, books and trees
+     */
+    ComputerPlayer newPlayer(int difficulty, GuessStrategy strategy, CodeRandom random) {
+        if (difficulty == ComputerPlayer.HARD) {
+            StrategyTree tree = tree(strategy);
+            if (tree != null) {
+                return new ComputerPlayer(scorer, tree, random);
+            }
+            return new ComputerPlayer(scorer, difficulty, strategy, random, OpeningBook.forScorer(scorer, strategy), false);
+        }
+        return new ComputerPlayer(scorer, difficulty, strategy, random, null, false);
+    }
+
+    /**
+     * tree
+     * @param strategy
+     * @return the shared strategy tree for a strategy, or null if the spec is too large to build one
+     */
+    private StrategyTree tree(GuessStrategy strategy) {
+        return trees.computeIfAbsent(strategy, key -> {
+            StrategyTree tree = StrategyTree.forSpec(spec, key); // exported tree, if any
+            if (tree == null && scorer.getCodeCount() <= FeedbackTable.MAX_TABLE_CODES) {
+                tree = StrategyTree.build(scorer, key); // quick to build for small specs
+            }
+            return Optional.ofNullable(tree);
+        }).orElse(null);
+    }
+
+    /**
+     * record
+     * appends a game to the replay log, if there is one
+     * @param record
+     */
+    void record(GameRecord record) {
+        ReplayLog replayLog = log;
+        if (replayLog != null) {
+            try {
+                replayLog.append(record);
+            } catch (IOException e) {
+                log = null; // stop recording rather than fail the games
+                System.err.println("Replay log stopped: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * newRecord
+     * @param kind GameRecord.PLAY or SOLVE
+     * @param difficulty
+     * @param strategy
+     * @param seed seed of the game's random stream
+     * @return a record for a new game, or null if no log is set or the spec can't be recorded
+     */
+    GameRecord newRecord(int kind, int difficulty, GuessStrategy strategy, long seed) {
+        return log != null && GameRecord.fits(spec) ? new GameRecord(spec, kind, difficulty, strategy, seed) : null;
+    }
+
+    /**
+     * setReplayLog
+     * @param log where sessions record their games, or null to stop recording
+     */
+    public void setReplayLog(ReplayLog log) {
+        this.log = log;
+    }
+
+    public GameSpec getSpec() {
+        return spec;
+    }
+
+    /**
+     * getScorer
+     * @return scorer, or null if the code space is too large for the computer to guess
+     */
+    public FeedbackScorer getScorer() {
+        return scorer;
+    }
+}
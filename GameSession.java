@@ -0,0 +1,234 @@
+/**
+ * GameSession
+ * one player's games on a server, as a state machine driven one line at a time, so it doesn't
+ * care whether the lines come from a socket, a multiplexed stdin or a pipelined buffer
+ * the session starts at the menu, every line in gives one or more lines out:
+ * 1. "play": the computer sets a code and the player sends guesses, answered with their clues
+ * 2. "solve easy|medium|hard [strategy]": the computer guesses and the player sends the feedback
+ *    for each guess ("bbww", or an empty line for no pegs)
+ * 3. "quit": ends the session
+ * a finished game goes back to the menu; feedback is kept as int ids, strings only go out on the wire
+ * every game draws its own seed from the session's stream, so a recorded game (GameRecord) can be
+ * played again from its seed alone
+ * not thread safe, a session is driven by one thread at a time
+ */
+
+public class GameSession {
+
+    private static final int MENU = 0; // waiting for a command
+    private static final int GUESSING = 1; // the player guesses the computer's code
+    private static final int FEEDBACK = 2; // the computer guesses, waiting for feedback
+    private static final int CLOSED = 3; // quit
+
+    static final String COMMANDS = "Commands: play | solve easy|medium|hard [minimax|expected-size|entropy|most-parts] | quit";
+
+    private final GameService service; // shared spec, scorer, books and trees
+    private final GameSpec spec; // rules of the game
+    private final CodeRandom random; // this session's random stream
+    private int state = MENU;
+    private int attempt; // guesses made this game
+    private char[] secret; // computer's code while the player guesses
+    private ComputerPlayer player; // computer player while it guesses
+    private ConsistencyChecker checker; // checks the player's feedback, made for each game the computer guesses
+    private GameRecord record; // current game for the replay log, or null if it isn't recorded
+    private int guess; // computer's current guess
+    private final char[] decoded; // computer's current guess as letters
+
+    /**
+     * GameSession
+     * @param service
+     * @param random
+     */
+    GameSession(GameService service, CodeRandom random) {
+        this.service = service;
+        this.spec = service.getSpec();
+        this.random = random;
+        this.decoded = new char[spec.getLength()];
+    }
+
+    /**
+     * start
+     * writes the greeting
+     * @param out text to send, one line per entry ending with '\n'
+     */
+    public void start(StringBuilder out) {
+        out.append("Welcome to Codebreaker! Game: ").append(spec).append('\n');
+        out.append(COMMANDS).append('\n');
+    }
+
+    /**
+     * handle
+     * reacts to one line from the player
+     * @param line without its line terminator
+     * @param out text to send
+     */
+    public void handle(String line, StringBuilder out) {
+        String text = line.trim();
+        if (text.equalsIgnoreCase("quit")) {
+            close();
+            out.append("Bye\n");
+            return;
+        }
+        switch (state) {
+            case MENU -> command(text.toLowerCase(), out);
+            case GUESSING -> playerGuess(text.toUpperCase(), out);
+            case FEEDBACK -> computerFeedback(text.toLowerCase(), out);
+            default -> out.append("Session closed\n");
+        }
+    }
+
+    /**
+     * isClosed
+     * @return true once the player has quit
+     */
+    public boolean isClosed() {
+        return state == CLOSED;
+    }
+
+    /**
+     * command
+     * starts a game from the menu
+     * @param command
+     * @param out
+     */
+    private void command(String command, StringBuilder out) {
+        String[] words = command.split("\\s+");
+        if (words[0].equals("play")) {
+            long seed = random.nextLong(); // the game's own seed
+            secret = new CodeRandom(seed).nextCode(spec);
+            record = service.newRecord(GameRecord.PLAY, 0, null, seed);
+            attempt = 0;
+            state = GUESSING;
+            out.append("Guess the code of length ").append(spec.getLength()).append(" using the letters ")
+                    .append(spec.getAlphabet()).append(", ").append(spec.getMaxTries()).append(" tries\n");
+        } else if (words[0].equals("solve") && words.length >= 2) {
+            int difficulty = words[1].equals("easy") ? ComputerPlayer.EASY : words[1].equals("medium") ? ComputerPlayer.MEDIUM
+                    : words[1].equals("hard") ? ComputerPlayer.HARD : 0;
+            GuessStrategy strategy;
+            try {
+                strategy = words.length > 2 ? GuessStrategy.fromName(words[2]) : GuessStrategy.MINIMAX;
+            } catch (IllegalArgumentException e) {
+                strategy = null;
+            }
+            if (difficulty == 0 || strategy == null) {
+                out.append("Unknown difficulty or strategy\n").append(COMMANDS).append('\n');
+            } else if (service.getScorer() == null) {
+                out.append("There are too many possible codes for the computer to guess (").append(spec).append(")\n");
+            } else {
+                long seed = random.nextLong(); // the game's own seed
+                player = service.newPlayer(difficulty, strategy, new CodeRandom(seed));
+                player.reset();
+                record = service.newRecord(GameRecord.SOLVE, difficulty, strategy, seed);
+                checker = new ConsistencyChecker(service.getScorer(), player); // reads the player's candidates, so it costs no prune of its own
+                attempt = 0;
+                state = FEEDBACK;
+                out.append("Think of a code of length ").append(spec.getLength()).append(" using the letters ")
+                        .append(spec.getAlphabet()).append(" and give feedback for each guess\n");
+                nextComputerGuess(out);
+            }
+        } else if (!command.isEmpty()) {
+            out.append(COMMANDS).append('\n');
+        }
+    }
+
+    /**
+     * playerGuess
+     * scores the player's guess against the computer's code
+     * @param guessText
+     * @param out
+     */
+    private void playerGuess(String guessText, StringBuilder out) {
+        if (!spec.isValidCode(guessText)) {
+            out.append("Invalid guess, use ").append(spec.getLength()).append(" of the letters ").append(spec.getAlphabet()).append('\n');
+            return;
+        }
+        attempt++;
+        char[] code = guessText.toCharArray();
+        FeedbackScorer scorer = service.getScorer();
+        int feedback = scorer != null ? scorer.feedback(secret, code) : Feedback.score(secret, code);
+        if (record != null) {
+            record.add(code, feedback);
+        }
+        out.append("Clues: ").append(Feedback.toString(feedback, spec.getLength())).append('\n');
+        if (feedback == Feedback.solved(spec.getLength())) {
+            endGame(out.append("Solved in ").append(attempt).append(attempt == 1 ? " attempt\n" : " attempts\n"));
+        } else if (attempt >= spec.getMaxTries()) {
+            endGame(out.append("You lost, the code was ").append(secret).append('\n'));
+        }
+    }
+
+    /**
+     * computerFeedback
+     * gives the player's feedback to the computer and makes its next guess
+     * @param feedbackText
+     * @param out
+     */
+    private void computerFeedback(String feedbackText, StringBuilder out) {
+        if (!Feedback.isValid(feedbackText, spec.getLength())) {
+            out.append("Invalid feedback, use 'b' and 'w', up to ").append(spec.getLength()).append('\n');
+            return;
+        }
+        int feedback = Feedback.parse(feedbackText, spec.getLength());
+        if (record != null) {
+            record.add(decoded, feedback);
+        }
+        if (!checker.accept(guess, feedback)) { // gives the player the answer, and cuts the game off if it contradicts the others
+            endGame(out.append("The feedback provided is inconsistent, no code gives the feedback for ")
+                    .append(checker.describeConflict()).append('\n'));
+            return;
+        }
+        if (feedback == Feedback.solved(spec.getLength())) {
+            endGame(out.append("The computer guessed your code in ").append(attempt).append(attempt == 1 ? " attempt\n" : " attempts\n"));
+            return;
+        }
+        if (attempt >= spec.getMaxTries()) {
+            endGame(out.append("The computer couldn't guess your code, you win!\n"));
+        } else {
+            nextComputerGuess(out);
+        }
+    }
+
+    /**
+     * nextComputerGuess
+     * @param out
+     */
+    private void nextComputerGuess(StringBuilder out) {
+        guess = player.nextGuess();
+        attempt++;
+        out.append("Attempt ").append(attempt).append('/').append(spec.getMaxTries()).append(": ");
+        service.getScorer().getCodeSpace().decode(guess, decoded);
+        out.append(decoded).append('\n');
+    }
+
+    /**
+     * endGame
+     * back to the menu
+     * @param out
+     */
+    private void endGame(StringBuilder out) {
+        state = MENU;
+        player = null;
+        recordGame();
+        out.append(COMMANDS).append('\n');
+    }
+
+    /**
+     * close
+     * ends the session, recording a game that was still going (the player quit or disconnected)
+     */
+    public void close() {
+        state = CLOSED;
+        recordGame();
+    }
+
+    /**
+     * recordGame
+     * appends the current game to the replay log, if it is recorded
+     */
+    private void recordGame() {
+        if (record != null) {
+            service.record(record);
+            record = null;
+        }
+    }
+}
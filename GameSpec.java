@@ -0,0 +1,162 @@
+/**
+ * GameSpec
+ * the rules of one codebreaker variant: valid characters (colours), code length,
+ * maximum number of guesses, and whether a code may repeat a colour
+ * shared by every front-end, so a larger variant only needs a different spec
+ */
+
+public final class GameSpec {
+
+    // the standard game: GRBYOP, 4 pegs, 10 guesses, repeats allowed
+    public static final GameSpec CLASSIC = new GameSpec("GRBYOP", 4, 10, true);
+    // largest code space the computer enumerates (8MB candidate bitset)
+    public static final long MAX_ENUMERABLE_CODES = 1L << 26;
+
+    private final String alphabet; // valid characters for code
+    private final int length; // length of code
+    private final int maxTries; // max number of guesses/attempts
+    private final boolean duplicatesAllowed; // true if a colour may appear more than once in a code
+
+    /**
+     * GameSpec
+     * @param alphabet valid characters, each one only once
+     * @param length
+     * @param maxTries
+     * @param duplicatesAllowed
+     */
+    public GameSpec(String alphabet, int length, int maxTries, boolean duplicatesAllowed) {
+        alphabet = alphabet.toUpperCase(); // guesses are read in upper case
+        if (alphabet.isEmpty() || alphabet.chars().distinct().count() != alphabet.length()) {
+            throw new IllegalArgumentException("colours must be distinct characters: " + alphabet);
+        }
+        if (length < 1 || maxTries < 1) {
+            throw new IllegalArgumentException("code length and tries must be at least 1");
+        }
+        if (!duplicatesAllowed && length > alphabet.length()) {
+            throw new IllegalArgumentException("a code of length " + length + " needs repeated colours");
+        }
+        this.alphabet = alphabet;
+        this.length = length;
+        this.maxTries = maxTries;
+        this.duplicatesAllowed = duplicatesAllowed;
+    }
+
+    /**
+     * fromArgs
+     * reads a spec from command-line options, anything not given is taken from CLASSIC
+     * --colours GRBYOPWK  --length 5  --tries 12  --no-duplicates
+     * @param args
+     * @return spec
+     */
+    public static GameSpec fromArgs(String[] args) {
+        String alphabet = CLASSIC.alphabet;
+        int length = CLASSIC.length;
+        int maxTries = CLASSIC.maxTries;
+        boolean duplicatesAllowed = CLASSIC.duplicatesAllowed;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--colours") && i + 1 < args.length) {
+                alphabet = args[++i];
+            } else if (args[i].equals("--length") && i + 1 < args.length) {
+                length = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--tries") && i + 1 < args.length) {
+                maxTries = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--no-duplicates")) {
+                duplicatesAllowed = false;
+            }
+        }
+        return new GameSpec(alphabet, length, maxTries, duplicatesAllowed);
+    }
+
+    /**
+     * isValidCode
+     * checks the length, the characters and (if not allowed) repeated colours of a code
+     * @param code
+     * @return true if the code can be played
+     */
+    public boolean isValidCode(String code) {
+        if (code.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (alphabet.indexOf(code.charAt(i)) == -1) {
+                return false;
+            }
+            if (!duplicatesAllowed && code.indexOf(code.charAt(i)) != i) { // colour already used earlier in the code
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * getCodeCount
+     * number of codes in the full code space, including codes with repeats
+     * @return colours ^ length, or Long.MAX_VALUE if that doesn't fit in a long
+     */
+    public long getCodeCount() {
+        long count = 1;
+        for (int i = 0; i < length; i++) {
+            if (count > Long.MAX_VALUE / alphabet.length()) {
+                return Long.MAX_VALUE;
+            }
+            count *= alphabet.length();
+        }
+        return count;
+    }
+
+    /**
+     * isEnumerable
+     * @return true if the code space is small enough to enumerate by int index
+     */
+    public boolean isEnumerable() {
+        return getCodeCount() <= MAX_ENUMERABLE_CODES;
+    }
+
+    /**
+     * getFeedbackCount
+     * number of feedback ids, black * (length + 1) + white
+     * @return (length + 1) ^ 2
+     */
+    public int getFeedbackCount() {
+        return (length + 1) * (length + 1);
+    }
+
+    public String getAlphabet() {
+        return alphabet;
+    }
+
+    public int getColourCount() {
+        return alphabet.length();
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public int getMaxTries() {
+        return maxTries;
+    }
+
+    public boolean allowsDuplicates() {
+        return duplicatesAllowed;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof GameSpec)) {
+            return false;
+        }
+        GameSpec spec = (GameSpec) other;
+        return alphabet.equals(spec.alphabet) && length == spec.length && maxTries == spec.maxTries && duplicatesAllowed == spec.duplicatesAllowed;
+    }
+
+    @Override
+    public int hashCode() {
+        return ((alphabet.hashCode() * 31 + length) * 31 + maxTries) * 2 + (duplicatesAllowed ? 1 : 0);
+    }
+
+    @Override
+    public String toString() {
+        return alphabet + "/" + length + "/" + maxTries + (duplicatesAllowed ? "" : "/no-duplicates");
+    }
+}
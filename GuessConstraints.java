@@ -0,0 +1,205 @@
+/**
+ * GuessConstraints
+ * the guesses of a game and the feedback each one got, as constraints on the secret code, for code
+ * spaces too large to keep a candidate set: the memory grows with the number of guesses, not with
+ * the number of codes
+ * codes are arrays of colour indices (positions of the colours in the spec's alphabet)
+ * each guess keeps its colours, the number of each colour in it, its black pegs and its matches
+ * (black + white pegs, the colours the code and the guess have in common)
+ * not thread safe, but search state lives with the caller, so many searches can read one set of
+ * constraints while nobody adds to it
+ */
+
+import java.util.Arrays; // import arrays
+
+public class GuessConstraints {
+
+    private final GameSpec spec; // rules of the game
+    private final int colours; // number of colours
+    private int[][] guesses = new int[8][]; // colour index at each position of every guess
+    private int[][] guessCounts = new int[8][]; // number of each colour in every guess
+    private int[] blacks = new int[8]; // black pegs every guess got
+    private int[] matches = new int[8]; // black + white pegs every guess got
+    private int size; // number of guesses
+
+    /**
+     * GuessConstraints
+     * @param spec
+     */
+    public GuessConstraints(GameSpec spec) {
+        this.spec = spec;
+        this.colours = spec.getColourCount();
+    }
+
+    /**
+     * clear
+     * forgets every guess, for a new game
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * add
+     * @param guess code in letters of the spec
+     * @param feedback feedback id the guess got
+     */
+    public void add(char[] guess, int feedback) {
+        if (size == blacks.length) {
+            guesses = Arrays.copyOf(guesses, size * 2);
+            guessCounts = Arrays.copyOf(guessCounts, size * 2);
+            blacks = Arrays.copyOf(blacks, size * 2);
+            matches = Arrays.copyOf(matches, size * 2);
+        }
+        int[] code = digits(guess);
+        int[] counts = new int[colours];
+        for (int colour : code) {
+            counts[colour]++;
+        }
+        guesses[size] = code;
+        guessCounts[size] = counts;
+        blacks[size] = Feedback.black(feedback, spec.getLength());
+        matches[size] = blacks[size] + Feedback.white(feedback, spec.getLength());
+        size++;
+    }
+
+    /**
+     * isConsistent
+     * @param code colour indices of a complete code
+     * @param counts scratch array of one int per colour
+     * @return true if the code would have given every guess its feedback
+     */
+    public boolean isConsistent(int[] code, int[] counts) {
+        Arrays.fill(counts, 0);
+        for (int colour : code) {
+            counts[colour]++;
+        }
+        for (int i = 0; i < size; i++) {
+            int[] guess = guesses[i];
+            int black = 0;
+            for (int position = 0; position < code.length; position++) {
+                if (code[position] == guess[position]) {
+                    black++;
+                }
+            }
+            if (black != blacks[i]) {
+                return false;
+            }
+            int[] guessCount = guessCounts[i];
+            int common = 0;
+            for (int colour = 0; colour < colours; colour++) {
+                common += Math.min(counts[colour], guessCount[colour]);
+            }
+            if (common != matches[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * domains
+     * the colours each position can still have, from the guesses whose feedback rules colours out:
+     * a guess with every peg black fixes the code, a guess with no pegs at all rules its colours out
+     * everywhere, and a guess with no black pegs rules its colour out at each of its positions
+     * every consistent code has its colours in these domains, not every code in them is consistent
+     * @return for each position, true for each colour it can have
+     */
+    public boolean[][] domains() {
+        int length = spec.getLength();
+        boolean[][] domains = new boolean[length][colours];
+        for (boolean[] domain : domains) {
+            Arrays.fill(domain, true);
+        }
+        for (int i = 0; i < size; i++) {
+            int[] guess = guesses[i];
+            if (blacks[i] == length) { // the guess is the code
+                for (int position = 0; position < length; position++) {
+                    Arrays.fill(domains[position], false);
+                    domains[position][guess[position]] = true;
+                }
+            } else if (matches[i] == 0) { // none of its colours are in the code
+                for (boolean[] domain : domains) {
+                    for (int colour : guess) {
+                        domain[colour] = false;
+                    }
+                }
+            } else if (blacks[i] == 0) { // none of its colours are where it put them
+                for (int position = 0; position < length; position++) {
+                    domains[position][guess[position]] = false;
+                }
+            }
+        }
+        return domains;
+    }
+
+    /**
+     * digits
+     * @param code in letters of the spec
+     * @return colour index of each position
+     */
+    public int[] digits(char[] code) {
+        int[] digits = new int[code.length];
+        for (int i = 0; i < code.length; i++) {
+            digits[i] = spec.getAlphabet().indexOf(code[i]);
+        }
+        return digits;
+    }
+
+    /**
+     * letters
+     * @param digits colour index of each position
+     * @return the code in letters of the spec
+     */
+    public char[] letters(int[] digits) {
+        char[] code = new char[digits.length];
+        for (int i = 0; i < digits.length; i++) {
+            code[i] = spec.getAlphabet().charAt(digits[i]);
+        }
+        return code;
+    }
+
+    /**
+     * guess
+     * @param i guess number, from 0
+     * @return colour index at each position of the guess, not to be changed
+     */
+    int[] guess(int i) {
+        return guesses[i];
+    }
+
+    /**
+     * guessCounts
+     * @param i guess number, from 0
+     * @return number of each colour in the guess, not to be changed
+     */
+    int[] guessCounts(int i) {
+        return guessCounts[i];
+    }
+
+    /**
+     * black
+     * @param i guess number, from 0
+     * @return black pegs the guess got
+     */
+    int black(int i) {
+        return blacks[i];
+    }
+
+    /**
+     * matches
+     * @param i guess number, from 0
+     * @return black + white pegs the guess got
+     */
+    int matches(int i) {
+        return matches[i];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public GameSpec getSpec() {
+        return spec;
+    }
+}
@@ -0,0 +1,244 @@
+/**
+ * GuessSelector
+ * picks the next guess for the hard AI, by default using Knuth's minimax rule:
+ * every code is scored against the remaining candidates, and the guess whose largest
+ * feedback partition is the smallest wins (other rules are in GuessStrategy)
+ * ties go to guesses that are still possible candidates, then to the lowest code index
+ * given the Symmetry of the guesses so far, only the canonical guess of each class is scored
+ * large searches are split over guess ranges on a fork/join pool; the tie-break is a total
+ * order, so the parallel result is always the same as the sequential one
+ * uses a scratch array, so each thread needs its own selector
+ */
+
+import java.util.Arrays; // import arrays
+import java.util.concurrent.ForkJoinPool; // import fork/join pool
+import java.util.concurrent.RecursiveTask; // import recursive task
+
+public class GuessSelector {
+
+    // guesses x candidates below which the search stays on the calling thread
+    static final long PARALLEL_THRESHOLD = 1L << 20;
+    // guesses x candidates scored by one fork/join leaf task
+    static final long LEAF_WORK = 1L << 16;
+    // candidates scored per FeedbackScorer.scoreAll() call, between early-exit checks
+    static final int BATCH = 32;
+
+    private final FeedbackScorer scorer; // feedback for the code space
+    private final GuessStrategy strategy; // cost of a guess's partitions
+    private final ForkJoinPool pool; // pool for large searches
+    private final boolean[] isCandidate; // scratch, marks codes that are still possible
+
+    /**
+     * GuessSelector
+     * minimax selection, using the common fork/join pool for large searches
+     * @param scorer
+     */
+    public GuessSelector(FeedbackScorer scorer) {
+        this(scorer, GuessStrategy.MINIMAX, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * GuessSelector
+     * uses the common fork/join pool for large searches
+     * @param scorer
+     * @param strategy
+     */
+    public GuessSelector(FeedbackScorer scorer, GuessStrategy strategy) {
+        this(scorer, strategy, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * GuessSelector
+     * minimax selection
+     * @param scorer
+     * @param pool
+     */
+    public GuessSelector(FeedbackScorer scorer, ForkJoinPool pool) {
+        this(scorer, GuessStrategy.MINIMAX, pool);
+    }
+
+    /**
+     * GuessSelector
+     * @param scorer
+     * @param strategy
+     * @param pool
+     */
+    public GuessSelector(FeedbackScorer scorer, GuessStrategy strategy, ForkJoinPool pool) {
+        this.scorer = scorer;
+        this.strategy = strategy;
+        this.pool = pool;
+        this.isCandidate = new boolean[scorer.getCodeCount()];
+    }
+
+    /**
+     * selectGuess
+     * returns the code with the lowest cost over the candidates
+     * @param candidates code indices that are still possible
+     * @param count number of entries of candidates in use
+     * @return guess
+     */
+    public int selectGuess(int[] candidates, int count) {
+        return selectGuess(candidates, count, null);
+    }
+
+    /**
+     * selectGuess
+     * same as above, skipping guesses that the symmetry makes equivalent to a lower one
+     * @param candidates code indices that are still possible
+     * @param count number of entries of candidates in use
+     * @param symmetry symmetry left by the guesses so far, or null to score every guess
+     * @return guess
+     */
+    public int selectGuess(int[] candidates, int count, Symmetry symmetry) {
+        if (count <= 2) { // any candidate splits one or two codes as well as possible
+            return candidates[0];
+        }
+
+        for (int i = 0; i < count; i++) {
+            isCandidate[candidates[i]] = true;
+        }
+
+        long[] best; // cost and tie-break key of the best guess, see rank()
+        int guessCount = scorer.getCodeCount();
+        long work = (long) (symmetry != null ? symmetry.size() : guessCount) * count; // guesses x candidates to score
+        if (work < PARALLEL_THRESHOLD || pool.getParallelism() == 1) {
+            best = bestInRange(0, guessCount, candidates, count, symmetry);
+        } else {
+            best = pool.invoke(new GuessTask(0, guessCount, candidates, count, symmetry));
+        }
+
+        for (int i = 0; i < count; i++) {
+            isCandidate[candidates[i]] = false;
+        }
+        return (int) best[1];
+    }
+
+    public GuessStrategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * bestInRange
+     * scores the guesses from start (inclusive) to end (exclusive)
+     * @param start
+     * @param end
+     * @param candidates
+     * @param count
+     * @param symmetry
+     * @return cost and tie-break key of the best guess in the range
+     */
+    private long[] bestInRange(int start, int end, int[] candidates, int count, Symmetry symmetry) {
+        int[] sizes = new int[scorer.getFeedbackCount()]; // number of candidates per feedback id
+        int[] feedback = new int[Math.min(count, BATCH)]; // feedback ids of one batch
+        CodeSpace codeSpace = scorer.getCodeSpace();
+        long[] best = {Long.MAX_VALUE, Long.MAX_VALUE};
+        long limit = Long.MAX_VALUE; // partition size no winning guess can exceed
+        for (int guess = start; guess < end; guess++) {
+            if (!codeSpace.isValid(guess)) { // repeats a colour when the spec doesn't allow it
+                continue;
+            }
+            if (symmetry != null && !symmetry.isCanonical(guess)) { // scores the same as a lower guess
+                continue;
+            }
+            int worst = histogram(guess, candidates, count, limit, sizes, feedback);
+            if (worst > limit) { // stopped early, can't beat the best guess
+                continue;
+            }
+            long cost = strategy.cost(sizes, worst);
+            long key = rank(guess);
+            if (cost < best[0] || (cost == best[0] && key < best[1])) {
+                best[0] = cost;
+                best[1] = key;
+                limit = strategy.partitionLimit(cost);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * rank
+     * packs a guess into a tie-break key that puts candidates first, then orders by index
+     * the guess index is the low 32 bits of the key
+     * @param guess
+     * @return key, lower is better
+     */
+    private long rank(int guess) {
+        return ((isCandidate[guess] ? 0L : 1L) << 32) | guess;
+    }
+
+    /**
+     * better
+     * @param a cost and key of one guess
+     * @param b cost and key of another guess
+     * @return the better of the two
+     */
+    private static long[] better(long[] a, long[] b) {
+        return a[0] < b[0] || (a[0] == b[0] && a[1] <= b[1]) ? a : b;
+    }
+
+    /**
+     * histogram
+     * counts the candidates in each feedback partition of a guess and returns the largest
+     * scores the candidates in batches, and stops early once a partition is larger than the limit,
+     * since the guess cannot win
+     * @param guess
+     * @param candidates
+     * @param count
+     * @param limit
+     * @param sizes filled with the number of candidates per feedback id
+     * @param feedback scratch array for one batch of feedback ids
+     * @return size of the largest partition
+     */
+    private int histogram(int guess, int[] candidates, int count, long limit, int[] sizes, int[] feedback) {
+        Arrays.fill(sizes, 0);
+        int worst = 0;
+        for (int from = 0; from < count; from += feedback.length) {
+            int batch = Math.min(feedback.length, count - from);
+            scorer.scoreAll(guess, candidates, from, batch, feedback);
+            for (int i = 0; i < batch; i++) {
+                int size = ++sizes[feedback[i]];
+                if (size > worst) {
+                    worst = size;
+                }
+            }
+            if (worst > limit) {
+                return worst;
+            }
+        }
+        return worst;
+    }
+
+    /**
+     * GuessTask
+     * splits a range of guesses in half until it is small enough to score directly
+     * idle workers steal the unscored halves
+     */
+    private class GuessTask extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L; // tasks are never serialized, RecursiveTask just is Serializable
+        private final int start; // first guess (inclusive)
+        private final int end; // last guess (exclusive)
+        private final int[] candidates;
+        private final int count;
+        private final transient Symmetry symmetry; // not serializable, and never needs to be
+
+        GuessTask(int start, int end, int[] candidates, int count, Symmetry symmetry) {
+            this.start = start;
+            this.end = end;
+            this.candidates = candidates;
+            this.count = count;
+            this.symmetry = symmetry;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (end - start <= 1 || (long) (end - start) * count <= LEAF_WORK) {
+                return bestInRange(start, end, candidates, count, symmetry);
+            }
+            int middle = (start + end) >>> 1;
+            GuessTask left = new GuessTask(start, middle, candidates, count, symmetry);
+            left.fork(); // left half can be stolen by another worker
+            long[] right = new GuessTask(middle, end, candidates, count, symmetry).compute();
+            return better(left.join(), right);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * GuessStrategy
+ * how GuessSelector turns the partition histogram of a guess into a cost, lower is better
+ * every strategy works on the same histogram (candidates per feedback id), so switching
+ * strategies doesn't change how much scoring a turn needs
+ * 1. MINIMAX, Knuth's rule: the size of the largest partition
+ * 2. EXPECTED_SIZE: the expected size of the partition the secret falls in (sum of squared sizes)
+ * 3. ENTROPY: the information the feedback gives, as sum of size * ln(size) in fixed point
+ *    (the smallest sum is the highest entropy)
+ * 4. MOST_PARTS: the number of feedback ids no candidate gives (the fewest gives the most parts)
+ * every cost only grows as partitions grow, except MOST_PARTS, which can't stop early
+ */
+
+public enum GuessStrategy {
+
+    MINIMAX {
+        @Override
+        long cost(int[] sizes, int worst) {
+            return worst;
+        }
+
+        @Override
+        long partitionLimit(long bestCost) {
+            return bestCost;
+        }
+    },
+
+    EXPECTED_SIZE {
+        @Override
+        long cost(int[] sizes, int worst) {
+            long sum = 0;
+            for (int size : sizes) {
+                sum += (long) size * size;
+            }
+            return sum;
+        }
+
+        @Override
+        long partitionLimit(long bestCost) {
+            return (long) Math.sqrt((double) bestCost); // a larger partition alone costs more than the best
+        }
+    },
+
+    ENTROPY {
+        @Override
+        long cost(int[] sizes, int worst) {
+            double sum = 0;
+            for (int size : sizes) {
+                if (size > 1) {
+                    sum += size * Math.log(size);
+                }
+            }
+            return (long) (sum * ENTROPY_SCALE);
+        }
+
+        @Override
+        long partitionLimit(long bestCost) {
+            long low = 1, high = Integer.MAX_VALUE; // largest partition whose own cost is within bestCost
+            while (low < high) {
+                long middle = (low + high + 1) >>> 1;
+                if ((long) (middle * Math.log(middle) * ENTROPY_SCALE) <= bestCost) {
+                    low = middle;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return low;
+        }
+    },
+
+    MOST_PARTS {
+        @Override
+        long cost(int[] sizes, int worst) {
+            long empty = 0;
+            for (int size : sizes) {
+                if (size == 0) {
+                    empty++;
+                }
+            }
+            return empty;
+        }
+
+        @Override
+        long partitionLimit(long bestCost) {
+            return Long.MAX_VALUE; // a large partition can still come with many parts
+        }
+    };
+
+    // fixed point scale for entropy costs, keeps 24 fraction bits
+    static final double ENTROPY_SCALE = 1 << 24;
+
+    /**
+     * cost
+     * @param sizes number of candidates for each feedback id
+     * @param worst largest entry of sizes
+     * @return cost of the guess
+     */
+    abstract long cost(int[] sizes, int worst);
+
+    /**
+     * partitionLimit
+     * largest partition a guess can have and still match the best cost so far,
+     * lets the histogram stop early for guesses that can't win
+     * @param bestCost
+     * @return partition size limit
+     */
+    abstract long partitionLimit(long bestCost);
+
+    /**
+     * toString
+     * @return lower case name with dashes, as used in options and file names
+     */
+    @Override
+    public String toString() {
+        return name().toLowerCase().replace('_', '-');
+    }
+
+    /**
+     * fromName
+     * @param name strategy name, case and dashes ignored ("expected-size")
+     * @return strategy
+     */
+    public static GuessStrategy fromName(String name) {
+        return valueOf(name.toUpperCase().replace('-', '_'));
+    }
+}
@@ -0,0 +1,322 @@
+/**
+ * LoadGenerator
+ * drives a ProtocolServer with many pipelined games and reports the throughput
+ * each connection keeps a number of games in flight (the pipeline depth) and answers every
+ * server line in the batch it arrived with, so requests go out without waiting for each answer
+ * 1. solve: the server guesses, the generator knows the secret and sends the feedback
+ * 2. play: the server sets the code, the generator guesses with a local medium player
+ * 3. burst: sends a number of bad requests in one go and checks that every one is answered, even
+ *    when the answers are many times the server's buffers (exits with 1 if some are missing)
+ * without --port a server is started in this JVM on a free port
+ * usage: java LoadGenerator [--port N] [--mode solve|play] [--difficulty easy|medium|hard] [--games N]
+ *        [--connections N] [--pipeline N] [--log file] [--colours X --length N --tries N --no-duplicates]
+ *        (--log records the in-process server's games in a replay log)
+ *        java LoadGenerator --burst N [--port N]
+ */
+
+import java.io.BufferedInputStream; // import buffered input stream
+import java.io.BufferedOutputStream; // import buffered output stream
+import java.io.IOException; // import io exception
+import java.io.InputStream; // import input stream
+import java.io.OutputStream; // import output stream
+import java.net.InetAddress; // import inet address
+import java.net.InetSocketAddress; // import inet socket address
+import java.net.Socket; // import socket
+import java.net.SocketTimeoutException; // import socket timeout exception
+import java.net.StandardSocketOptions; // import socket options
+import java.nio.ByteBuffer; // import byte buffer
+import java.nio.channels.ServerSocketChannel; // import server socket channel
+import java.nio.channels.SocketChannel; // import socket channel
+import java.nio.charset.StandardCharsets; // import charsets
+import java.util.ArrayList; // import array list
+import java.util.List; // import list
+import java.util.concurrent.Future; // import future
+import java.util.concurrent.ExecutorService; // import executor service
+import java.util.concurrent.Executors; // import executors
+
+public class LoadGenerator {
+
+    static final int MAX_PIPELINE = 256; // games in flight per connection, keeps the socket buffers from filling up
+    static final int BURST_TIMEOUT = 10000; // milliseconds a burst waits for its answers
+
+    private final FeedbackScorer scorer; // feedback for the code space, same spec as the server
+    private final GameSpec spec; // rules of every game
+    private final boolean solve; // true if the server guesses
+    private final String difficulty; // server's difficulty in solve mode
+
+    /**
+     * LoadGenerator
+     * @param spec
+     * @param solve true if the server guesses, false if the generator does
+     * @param difficulty server's difficulty in solve mode
+     */
+    public LoadGenerator(GameSpec spec, boolean solve, String difficulty) {
+        this.spec = spec;
+        this.scorer = FeedbackScorer.forSpec(spec);
+        this.solve = solve;
+        this.difficulty = difficulty;
+    }
+
+    /**
+     * run
+     * plays games over one connection
+     * @param port
+     * @param games games to play
+     * @param pipeline games in flight at once
+     * @param seed
+     * @return games played, guesses made, games not solved, requests sent
+     */
+    public long[] run(int port, int games, int pipeline, long seed) throws IOException {
+        CodeRandom random = new CodeRandom(seed);
+        int slots = Math.min(Math.min(pipeline, MAX_PIPELINE), games);
+        int[] secrets = new int[slots]; // solve mode, the code each slot's game is about
+        ComputerPlayer[] players = new ComputerPlayer[slots]; // play mode, the guesser of each slot
+        int[] guesses = new int[slots]; // play mode, last guess of each slot
+        int[] attempts = new int[slots];
+        long played = 0, guessCount = 0, unsolved = 0, requests = 0;
+        int started = 0;
+
+        try (SocketChannel channel = SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), port))) {
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            ByteBuffer in = ByteBuffer.allocateDirect(ProtocolServer.BUFFER_SIZE);
+            ByteBuffer out = ByteBuffer.allocateDirect(ProtocolServer.BUFFER_SIZE);
+            byte[] line = new byte[ProtocolServer.MAX_LINE];
+            char[] code = new char[spec.getLength()];
+
+            for (int slot = 0; slot < slots; slot++) {
+                requests += start(slot, secrets, players, attempts, random, out);
+                started++;
+            }
+            while (played < games) {
+                out.flip();
+                while (out.hasRemaining()) {
+                    channel.write(out);
+                }
+                out.clear();
+                if (channel.read(in) == -1) {
+                    throw new IOException("server closed the connection");
+                }
+                in.flip();
+                int end;
+                while ((end = indexOf(in, (byte) '\n')) != -1) {
+                    int length = end - in.position();
+                    in.get(line, 0, length).get();
+                    String[] words = new String(line, 0, length, StandardCharsets.US_ASCII).split(" ");
+                    if (words[0].equals("ERROR")) {
+                        throw new IOException("server error: " + String.join(" ", words));
+                    }
+                    int slot = Integer.parseInt(words[1]);
+                    boolean finished = false;
+                    if (words[0].equals("GUESS")) { // solve mode, feedback for the server's guess
+                        words[2].getChars(0, code.length, code, 0);
+                        int feedback = scorer.score(secrets[slot], scorer.encode(code));
+                        put(out, "FEEDBACK " + slot + " " + clues(feedback) + "\n");
+                        requests++;
+                    } else if (words[0].equals("RESULT") && solve) {
+                        finished = true;
+                        if (words[2].equals("SOLVED")) {
+                            guessCount += Integer.parseInt(words[3]);
+                        } else {
+                            unsolved++;
+                        }
+                    } else if (words[0].equals("RESULT") && words.length > 3) { // play mode, won or lost
+                        finished = true;
+                        guessCount += attempts[slot];
+                        if (!words[3].equals("WIN")) {
+                            unsolved++;
+                        }
+                    } else { // play mode, OK for a new game or clues for a guess
+                        if (words[0].equals("RESULT")) {
+                            int feedback = words[2].equals("-") ? 0 : scorer.feedbackId(words[2]);
+                            players[slot].feedback(guesses[slot], feedback);
+                        }
+                        guesses[slot] = players[slot].nextGuess();
+                        attempts[slot]++;
+                        put(out, "GUESS " + slot + " " + new String(scorer.decode(guesses[slot])) + "\n");
+                        requests++;
+                    }
+                    if (finished) {
+                        played++;
+                        if (started < games) {
+                            requests += start(slot, secrets, players, attempts, random, out);
+                            started++;
+                        }
+                    }
+                }
+                in.compact();
+            }
+            put(out, "QUIT\n");
+            out.flip();
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+        }
+        return new long[] {played, guessCount, unsolved, requests + 1};
+    }
+
+    /**
+     * burst
+     * sends every request before reading any answer, like a client that pipelines without a limit
+     * @param port
+     * @param count requests to send
+     * @return answers received before the server went quiet for BURST_TIMEOUT
+     */
+    public static long burst(int port, int count) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            socket.setSoTimeout(BURST_TIMEOUT);
+            Thread writer = Thread.ofVirtual().start(() -> { // writes while the answers are read
+                try {
+                    OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+                    for (int i = 0; i < count; i++) {
+                        out.write('X');
+                        out.write('\n');
+                    }
+                    out.flush();
+                } catch (IOException e) {
+                    // the reader sees the missing answers
+                }
+            });
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            long answers = 0;
+            try {
+                int b;
+                while (answers < count && (b = in.read()) != -1) {
+                    if (b == '\n') {
+                        answers++;
+                    }
+                }
+            } catch (SocketTimeoutException e) {
+                // the server stopped answering
+            }
+            writer.interrupt();
+            return answers;
+        }
+    }
+
+    /**
+     * start
+     * queues the request for a slot's next game
+     * @return number of requests queued
+     */
+    private int start(int slot, int[] secrets, ComputerPlayer[] players, int[] attempts, CodeRandom random, ByteBuffer out) {
+        attempts[slot] = 0;
+        if (solve) {
+            secrets[slot] = random.nextCode(scorer.getCodeSpace());
+            put(out, "NEW " + slot + " SOLVE " + difficulty + "\n");
+        } else {
+            if (players[slot] == null) {
+                players[slot] = new ComputerPlayer(scorer, ComputerPlayer.MEDIUM, GuessStrategy.MINIMAX, random.split(), null, false);
+            }
+            players[slot].reset();
+            put(out, "NEW " + slot + " PLAY\n");
+        }
+        return 1;
+    }
+
+    /**
+     * clues
+     * @param feedback
+     * @return clues as sent on the wire, "-" for none
+     */
+    private String clues(int feedback) {
+        return feedback == 0 ? "-" : scorer.feedbackString(feedback);
+    }
+
+    /**
+     * put
+     * @param out
+     * @param text
+     */
+    private static void put(ByteBuffer out, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            out.put((byte) text.charAt(i));
+        }
+    }
+
+    /**
+     * indexOf
+     * @param buffer in read mode
+     * @param value
+     * @return absolute index of the first byte with the value, or -1
+     */
+    private static int indexOf(ByteBuffer buffer, byte value) {
+        for (int i = buffer.position(); i < buffer.limit(); i++) {
+            if (buffer.get(i) == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // main method
+    public static void main(String[] args) throws Exception {
+        GameSpec spec = GameSpec.fromArgs(args);
+        String port = Simulation.option(args, "--port");
+        String mode = Simulation.option(args, "--mode");
+        String difficulty = Simulation.option(args, "--difficulty");
+        String games = Simulation.option(args, "--games");
+        String connections = Simulation.option(args, "--connections");
+        String pipeline = Simulation.option(args, "--pipeline");
+        String burst = Simulation.option(args, "--burst");
+        LoadGenerator generator = new LoadGenerator(spec, !"play".equals(mode), difficulty != null ? difficulty.toUpperCase() : "HARD");
+        int connectionCount = connections != null ? Integer.parseInt(connections) : 4;
+        int gameCount = games != null ? Integer.parseInt(games) : 100000;
+        int depth = pipeline != null ? Integer.parseInt(pipeline) : 64;
+
+        ServerSocketChannel local = null; // server in this JVM, if no port was given
+        int serverPort;
+        if (port != null) {
+            serverPort = Integer.parseInt(port);
+        } else {
+            local = ServerSocketChannel.open().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 4096);
+            serverPort = ((InetSocketAddress) local.getLocalAddress()).getPort();
+            GameService service = new GameService(spec, new CodeRandom(1));
+            ReplayLog.openFor(service, Simulation.option(args, "--log"));
+            ProtocolServer server = new ProtocolServer(service);
+            ServerSocketChannel channel = local;
+            Thread.ofPlatform().daemon().name("protocol-server").start(() -> {
+                try {
+                    server.serve(channel);
+                } catch (IOException e) {
+                    // closed at the end of the run
+                }
+            });
+        }
+
+        if (burst != null) {
+            int count = Integer.parseInt(burst);
+            long answers = burst(serverPort, count);
+            System.out.println("Burst: " + count + " requests, " + answers + " answers");
+            if (answers < count) {
+                System.exit(1);
+            }
+            return;
+        }
+
+        long start = System.nanoTime();
+        long[] totals = new long[4];
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<long[]>> results = new ArrayList<>();
+            for (int c = 0; c < connectionCount; c++) {
+                int share = gameCount / connectionCount + (c < gameCount % connectionCount ? 1 : 0);
+                long seed = c;
+                results.add(clients.submit(() -> generator.run(serverPort, share, depth, seed)));
+            }
+            for (Future<long[]> result : results) {
+                long[] counts = result.get();
+                for (int i = 0; i < totals.length; i++) {
+                    totals[i] += counts[i];
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        if (local != null) {
+            local.close();
+        }
+
+        System.out.println("Spec: " + spec + ", mode: " + (generator.solve ? "solve (" + generator.difficulty.toLowerCase() + ")" : "play"));
+        System.out.println("Connections: " + connectionCount + ", pipeline: " + depth);
+        System.out.printf("Games: %d, not solved: %d, mean guesses: %.4f%n", totals[0], totals[2], totals[1] / (double) Math.max(1, totals[0] - totals[2]));
+        System.out.printf("Requests: %d in %.3f s, %.1f requests/second, %.1f games/second%n", totals[3], seconds, totals[3] / seconds, totals[0] / seconds);
+    }
+}
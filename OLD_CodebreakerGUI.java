@@ -22,9 +22,11 @@ public class CodebreakerGUI extends SimpleScreen {
     private int mode = 0;
     private int attempts = 0;
 
-    static final String VALID_CHARS = "GRBYOP";
-    static final int CODE_LENGTH = 4;
-    static final int MAX_TRIES = 10;
+    static final GameSpec SPEC = GameSpec.CLASSIC;
+    static final FeedbackScorer SCORER = FeedbackScorer.forSpec(SPEC);
+    static final String VALID_CHARS = SPEC.getAlphabet();
+    static final int CODE_LENGTH = SPEC.getLength();
+    static final int MAX_TRIES = SPEC.getMaxTries();
 
     public static void main(String[] args) {
         Cobra2DEngine engine = new Cobra2DEngine(new CodebreakerGUI(), "Codebreaker", 800, 600);
@@ -216,49 +218,19 @@ public class CodebreakerGUI extends SimpleScreen {
     }
 
     private boolean isValidGuess(String guess) {
-        return guess.length() == CODE_LENGTH && guess.chars().allMatch(c -> VALID_CHARS.indexOf(c) != -1);
+        return SPEC.isValidCode(guess);
     }
 
     private String getFeedback(char[] secretCode, char[] guess) {
-        int black = 0, white = 0;
-        boolean[] codeUsed = new boolean[secretCode.length];
-        boolean[] guessUsed = new boolean[guess.length];
-
-        for (int i = 0; i < secretCode.length; i++) {
-            if (secretCode[i] == guess[i]) {
-                black++;
-                codeUsed[i] = guessUsed[i] = true;
-            }
-        }
-
-        for (int i = 0; i < secretCode.length; i++) {
-            if (!codeUsed[i]) {
-                for (int j = 0; j < guess.length; j++) {
-                    if (!guessUsed[j] && secretCode[i] == guess[j]) {
-                        white++;
-                        guessUsed[j] = true;
-                        break;
-                    }
-                }
-            }
-        }
-
-        return "b".repeat(black) + "w".repeat(white);
+        return SCORER.getFeedback(secretCode, guess);
     }
 
     private ArrayList<String> generateAllPossibleCodes(String validChars, int length) {
-        ArrayList<String> codes = new ArrayList<>();
-        generateCodesHelper(validChars, "", length, codes);
-        return codes;
-    }
-
-    private void generateCodesHelper(String validChars, String currentCode, int length, ArrayList<String> codes) {
-        if (currentCode.length() == length) {
-            codes.add(currentCode);
-            return;
-        }
-        for (int i = 0; i < validChars.length(); i++) {
-            generateCodesHelper(validChars, currentCode + validChars.charAt(i), length, codes);
+        CodeSpace codeSpace = new CodeSpace(validChars, length);
+        ArrayList<String> codes = new ArrayList<>(codeSpace.size());
+        for (int i = 0; i < codeSpace.size(); i++) {
+            codes.add(new String(codeSpace.decode(i)));
         }
+        return codes;
     }
 }
@@ -0,0 +1,313 @@
+/**
+ * OpeningBook
+ * the hard AI's first guess, and its reply to every possible feedback for that guess,
+ * computed once per spec and strategy with the same selector the AI uses, so playing from the book
+ * gives exactly the same games as searching live
+ * books are built in memory for specs up to FeedbackTable.MAX_TABLE_CODES codes, unless one has been
+ * exported, or the system property codebreaker.books names a directory to keep them in; a book
+ * file is small, binary and memory-mapped when loaded:
+ * magic, version, alphabet length, alphabet chars, code length, duplicates flag,
+ * strategy, first guess, feedback count, then one reply per feedback id (-1 if there is none)
+ * usage: java OpeningBook [minimax|expected-size|entropy|most-parts] [file] [--colours X --length N --tries N --no-duplicates]
+ */
+
+import java.io.IOException; // import io exception
+import java.nio.ByteBuffer; // import byte buffer
+import java.nio.channels.FileChannel; // import file channel
+import java.nio.file.Files; // import files
+import java.nio.file.Path; // import path
+import java.nio.file.Paths; // import paths
+import java.nio.file.StandardOpenOption; // import open options
+import java.util.List; // import list
+import java.util.concurrent.ConcurrentHashMap; // import concurrent hash map
+
+public class OpeningBook {
+
+    static final int MAGIC = 0x43424F42; // "CBOB"
+    static final int VERSION = 2;
+
+    // books already loaded or computed, by file name, shared by every player
+    private static final ConcurrentHashMap<String, OpeningBook> BOOKS = new ConcurrentHashMap<>();
+
+    private final ByteBuffer data; // whole book file, mapped or in memory
+    private final GuessStrategy strategy; // rule the guesses were picked with
+    private final int firstGuess; // opening guess
+    private final int repliesOffset; // byte offset of the first reply in data
+    private final int feedbackCount; // number of replies
+
+    /**
+     * OpeningBook
+     * wraps book data after its header has been checked
+     * @param data
+     * @param strategy
+     * @param firstGuess
+     * @param repliesOffset
+     * @param feedbackCount
+     */
+    private OpeningBook(ByteBuffer data, GuessStrategy strategy, int firstGuess, int repliesOffset, int feedbackCount) {
+        this.data = data;
+        this.strategy = strategy;
+        this.firstGuess = firstGuess;
+        this.repliesOffset = repliesOffset;
+        this.feedbackCount = feedbackCount;
+    }
+
+    /**
+     * forScorer
+     * returns the shared book for a scorer's spec and a strategy, loading it from the book directory
+     * (system property codebreaker.books, default the working directory) if it has been exported there,
+     * or computing it; a computed book is only saved when codebreaker.books is set, so playing never
+     * leaves files in the working directory, and one that can't be saved is still used from memory
+     * only specs small enough for a feedback table get a computed book: computing one is a full guess
+     * search for every feedback of the opening, far more than a game needs (e.g. 8 colours and 6
+     * positions), so larger specs play from an exported book or search their opening live
+     * @param scorer
+     * @param strategy
+     * @return book, or null if there is none and the spec is too large to compute one
+     */
+    public static OpeningBook forScorer(FeedbackScorer scorer, GuessStrategy strategy) {
+        String name = "-" + strategy + ".book";
+        return BOOKS.computeIfAbsent(key(scorer.getSpec()) + name, key -> {
+            Path file = file(scorer.getSpec(), name);
+            try {
+                if (Files.exists(file)) {
+                    OpeningBook book = load(file, scorer.getSpec());
+                    if (book.strategy == strategy) {
+                        return book;
+                    }
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                // unreadable or stale book, compute a new one below
+            }
+            if (scorer.getCodeCount() > FeedbackTable.MAX_TABLE_CODES) {
+                return null; // not kept, so a book exported later is still picked up
+            }
+            OpeningBook book = compute(scorer, strategy);
+            if (System.getProperty("codebreaker.books") != null) {
+                try {
+                    book.save(file);
+                } catch (IOException e) {
+                    // read-only directory, keep the book in memory only
+                }
+            }
+            return book;
+        });
+    }
+
+    /**
+     * compute
+     * runs the guess search for the opening guess and each of its replies
+     * @param scorer
+     * @param strategy
+     * @return book
+     */
+    public static OpeningBook compute(FeedbackScorer scorer, GuessStrategy strategy) {
+        GuessSelector selector = new GuessSelector(scorer, strategy);
+        CandidateSet all = new CandidateSet(scorer.getCodeSpace());
+        CandidateSet candidates = all.snapshot();
+        int[] scratch = new int[scorer.getCodeCount()];
+
+        CodeSpace codeSpace = scorer.getCodeSpace();
+        int first = selector.selectGuess(scratch, all.toArray(scratch), Symmetry.of(codeSpace, new int[0], 0));
+        Symmetry afterFirst = Symmetry.of(codeSpace, new int[] {first}, 1); // symmetry left after the first guess
+        int[] replies = new int[scorer.getFeedbackCount()];
+        for (int feedback = 0; feedback < replies.length; feedback++) {
+            candidates.restore(all);
+            candidates.prune(scorer, first, feedback);
+            if (candidates.isEmpty() || feedback == scorer.solvedId()) {
+                replies[feedback] = -1; // feedback can't happen, or the game is already over
+            } else {
+                replies[feedback] = selector.selectGuess(scratch, candidates.toArray(scratch), afterFirst);
+            }
+        }
+
+        ByteBuffer data = encode(scorer.getSpec(), strategy, first, replies);
+        return read(data, scorer.getSpec());
+    }
+
+    /**
+     * load
+     * memory-maps a book file
+     * @param file
+     * @param spec spec the book must have been computed for
+     * @return book
+     */
+    public static OpeningBook load(Path file, GameSpec spec) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), spec);
+        }
+    }
+
+    /**
+     * save
+     * writes the book to a file, replacing any older book
+     * @param file
+     */
+    public void save(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer copy = data.duplicate();
+            copy.clear();
+            while (copy.hasRemaining()) {
+                channel.write(copy);
+            }
+        }
+    }
+
+    public GuessStrategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * firstGuess
+     * @return opening guess
+     */
+    public int firstGuess() {
+        return firstGuess;
+    }
+
+    /**
+     * reply
+     * @param feedback feedback id given for the first guess
+     * @return second guess, or -1 if the book has none
+     */
+    public int reply(int feedback) {
+        if (feedback < 0 || feedback >= feedbackCount) {
+            return -1;
+        }
+        return data.getInt(repliesOffset + 4 * feedback);
+    }
+
+    /**
+     * file
+     * @param spec
+     * @param suffix file name ending, e.g. ".book"
+     * @return path of a precomputed file for the spec in the book directory
+     */
+    static Path file(GameSpec spec, String suffix) {
+        return Paths.get(System.getProperty("codebreaker.books", "."), "codebreaker-" + key(spec) + suffix);
+    }
+
+    /**
+     * key
+     * @param spec
+     * @return file name part for a spec (max tries don't change the book)
+     */
+    static String key(GameSpec spec) {
+        return spec.getAlphabet() + "-" + spec.getLength() + (spec.allowsDuplicates() ? "" : "-nodup");
+    }
+
+    /**
+     * encode
+     * lays out a book in the file format
+     * @param spec
+     * @param strategy
+     * @param first
+     * @param replies
+     * @return book data
+     */
+    private static ByteBuffer encode(GameSpec spec, GuessStrategy strategy, int first, int[] replies) {
+        ByteBuffer data = ByteBuffer.allocate(headerSize(spec) + 1 + 4 * 2 + 4 * replies.length);
+        putHeader(data, MAGIC, VERSION, spec);
+        data.put((byte) strategy.ordinal()).putInt(first).putInt(replies.length);
+        for (int reply : replies) {
+            data.putInt(reply);
+        }
+        data.flip();
+        return data;
+    }
+
+    /**
+     * read
+     * checks a book's header against a spec
+     * @param data
+     * @param spec
+     * @return book
+     */
+    private static OpeningBook read(ByteBuffer data, GameSpec spec) {
+        ByteBuffer header = data.duplicate();
+        checkHeader(header, MAGIC, VERSION, spec, "opening book");
+        if (header.remaining() < 9) {
+            throw new IllegalArgumentException("opening book is truncated");
+        }
+        int strategy = header.get();
+        int first = header.getInt();
+        int feedbackCount = header.getInt();
+        if (strategy < 0 || strategy >= GuessStrategy.values().length || feedbackCount != spec.getFeedbackCount() || header.remaining() < 4 * feedbackCount) {
+            throw new IllegalArgumentException("opening book is truncated");
+        }
+        return new OpeningBook(data, GuessStrategy.values()[strategy], first, header.position(), feedbackCount);
+    }
+
+    /**
+     * headerSize
+     * @param spec
+     * @return bytes taken by a file header for the spec
+     */
+    static int headerSize(GameSpec spec) {
+        return 4 * 3 + 2 * spec.getColourCount() + 4 + 1;
+    }
+
+    /**
+     * putHeader
+     * writes the header shared by book and tree files: magic, version and the spec
+     * (alphabet length, alphabet chars, code length, duplicates flag)
+     * @param data
+     * @param magic
+     * @param version
+     * @param spec
+     */
+    static void putHeader(ByteBuffer data, int magic, int version, GameSpec spec) {
+        String alphabet = spec.getAlphabet();
+        data.putInt(magic).putInt(version).putInt(alphabet.length());
+        for (int i = 0; i < alphabet.length(); i++) {
+            data.putChar(alphabet.charAt(i));
+        }
+        data.putInt(spec.getLength()).put((byte) (spec.allowsDuplicates() ? 1 : 0));
+    }
+
+    /**
+     * checkHeader
+     * reads a header written by putHeader and checks it against a spec
+     * @param data positioned at the header, left just after it
+     * @param magic
+     * @param version
+     * @param spec
+     * @param kind name of the file kind for error messages
+     */
+    static void checkHeader(ByteBuffer data, int magic, int version, GameSpec spec, String kind) {
+        if (data.remaining() < 12 || data.getInt() != magic || data.getInt() != version) {
+            throw new IllegalArgumentException("not a valid " + kind);
+        }
+        int alphabetLength = data.getInt();
+        if (alphabetLength < 0 || data.remaining() < 2 * alphabetLength + 5) {
+            throw new IllegalArgumentException(kind + " is truncated");
+        }
+        StringBuilder alphabet = new StringBuilder();
+        for (int i = 0; i < alphabetLength; i++) {
+            alphabet.append(data.getChar());
+        }
+        int length = data.getInt();
+        boolean duplicatesAllowed = data.get() != 0;
+        if (!alphabet.toString().equals(spec.getAlphabet()) || length != spec.getLength() || duplicatesAllowed != spec.allowsDuplicates()) {
+            throw new IllegalArgumentException(kind + " is for " + alphabet + "/" + length + ", not " + spec);
+        }
+    }
+
+    // main method
+    public static void main(String[] args) throws IOException {
+        List<String> values = Simulation.positional(args);
+        GuessStrategy strategy = values.size() > 0 ? GuessStrategy.fromName(values.get(0)) : GuessStrategy.MINIMAX;
+        GameSpec spec = GameSpec.fromArgs(args); // rules, classic unless changed by options
+        Path file = values.size() > 1 ? Paths.get(values.get(1)) : file(spec, "-" + strategy + ".book");
+
+        FeedbackScorer scorer = FeedbackScorer.forSpec(spec);
+        long start = System.nanoTime();
+        OpeningBook book = compute(scorer, strategy);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        book.save(file);
+
+        System.out.println("Spec: " + spec + ", strategy: " + strategy);
+        System.out.println("First guess: " + new String(scorer.getCodeSpace().decode(book.firstGuess())));
+        System.out.printf("Built in %.3f s, written to %s (%d bytes)%n", seconds, file, Files.size(file));
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * PackedScorer
+ * scores codes packed four bits per peg into a long, for up to 16 colours and 15 pegs
+ * black pegs are the zero nibbles of secret XOR guess, found with a few shifts and a bit count
+ * each code also has a per-colour count vector (four bits per colour); the sum of the per-colour
+ * minimums of two vectors is found with SWAR arithmetic, and white pegs are that sum minus the black pegs
+ * both longs are precomputed for code spaces of up to MAX_PACKED_CODES codes, and packed on the fly above that
+ */
+
+public class PackedScorer extends FeedbackScorer {
+
+    static final int MAX_COLOURS = 16; // colours that fit in a nibble
+    static final int MAX_LENGTH = 15; // pegs whose counts fit in a nibble
+    static final int MAX_PACKED_CODES = 1 << 22; // largest code space with precomputed codes (2 x 32MB)
+
+    static final long LOW_BITS = 0x1111111111111111L; // lowest bit of every nibble
+    static final long LOW_NIBBLES = 0x0F0F0F0F0F0F0F0FL; // low nibble of every byte
+    static final long GUARD_BITS = 0x1010101010101010L; // lowest bit of every high nibble
+    static final long BYTE_ONES = 0x0101010101010101L; // lowest bit of every byte
+
+    protected final int colours; // number of colours
+    protected final long[] packedCodes; // peg i of code c in nibble i of packedCodes[c], or null
+    protected final long[] colourCounts; // count of colour k in code c in nibble k of colourCounts[c], or null
+
+    /**
+     * PackedScorer
+     * @param spec
+     */
+    public PackedScorer(GameSpec spec) {
+        super(spec);
+        if (spec.getColourCount() > MAX_COLOURS || spec.getLength() > MAX_LENGTH) {
+            throw new IllegalArgumentException("too many colours or pegs to pack into nibbles: " + spec);
+        }
+        this.colours = spec.getColourCount();
+        if (codeSpace.size() <= MAX_PACKED_CODES) {
+            packedCodes = new long[codeSpace.size()];
+            colourCounts = new long[codeSpace.size()];
+            int[] digits = new int[length]; // digits of the code being visited, starts at code 0
+            for (int code = 0; code < packedCodes.length; code++) {
+                packedCodes[code] = pack(digits);
+                colourCounts[code] = countColours(digits);
+                CodeSpace.next(digits, colours);
+            }
+        } else {
+            packedCodes = null;
+            colourCounts = null;
+        }
+    }
+
+    @Override
+    public int score(int secret, int guess) {
+        long secretCode, guessCode, secretCounts, guessCounts;
+        if (packedCodes != null) {
+            secretCode = packedCodes[secret];
+            guessCode = packedCodes[guess];
+            secretCounts = colourCounts[secret];
+            guessCounts = colourCounts[guess];
+        } else {
+            int[] digits = new int[length];
+            codeSpace.digits(secret, digits);
+            secretCode = pack(digits);
+            secretCounts = countColours(digits);
+            codeSpace.digits(guess, digits);
+            guessCode = pack(digits);
+            guessCounts = countColours(digits);
+        }
+
+        int black = length - nonZeroNibbles(secretCode ^ guessCode);
+        return black * (length + 1) + (matches(secretCounts, guessCounts) - black);
+    }
+
+    /**
+     * matches
+     * sum over every colour of the smaller count, black and white pegs together, without a loop:
+     * the even and odd nibbles are spread into bytes, each byte subtracts from a guard bit to get
+     * the per-colour minimum, and a multiply adds up the bytes
+     * @param secretCounts count vector, four bits per colour
+     * @param guessCounts count vector, four bits per colour
+     * @return total matches
+     */
+    static int matches(long secretCounts, long guessCounts) {
+        long min = minBytes(secretCounts & LOW_NIBBLES, guessCounts & LOW_NIBBLES)
+                + minBytes((secretCounts >>> 4) & LOW_NIBBLES, (guessCounts >>> 4) & LOW_NIBBLES);
+        return (int) ((min * BYTE_ONES) >>> 56); // at most MAX_LENGTH, so no byte of the sum overflows
+    }
+
+    /**
+     * minBytes
+     * @param a values below 16 in every byte
+     * @param b values below 16 in every byte
+     * @return the smaller value of each byte
+     */
+    private static long minBytes(long a, long b) {
+        long notLess = (((a | GUARD_BITS) - b) >>> 4) & BYTE_ONES; // 1 in bytes where a >= b, the guard stops borrows
+        long mask = notLess * 15; // 15 in bytes where a >= b
+        return (b & mask) | (a & ~mask);
+    }
+
+    /**
+     * nonZeroNibbles
+     * counts the nibbles of a long that aren't zero
+     * @param value
+     * @return count
+     */
+    static int nonZeroNibbles(long value) {
+        value |= value >>> 1;
+        value |= value >>> 2; // lowest bit of each nibble is now the OR of the whole nibble
+        return Long.bitCount(value & LOW_BITS);
+    }
+
+    /**
+     * pack
+     * @param digits
+     * @return digits packed four bits per peg, first peg in the lowest nibble
+     */
+    static long pack(int[] digits) {
+        long packed = 0;
+        for (int i = 0; i < digits.length; i++) {
+            packed |= (long) digits[i] << (i << 2);
+        }
+        return packed;
+    }
+
+    /**
+     * countColours
+     * @param digits
+     * @return number of pegs of each colour, four bits per colour, colour 0 in the lowest nibble
+     */
+    static long countColours(int[] digits) {
+        long counts = 0;
+        for (int digit : digits) {
+            counts += 1L << (digit << 2);
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,176 @@
+/**
+ * PartitionHistograms
+ * the partition histogram of every guess (candidates per feedback id), kept up to date
+ * across turns instead of rescoring every guess against every candidate each turn
+ * a game starts from the histograms of the full code space, computed once per spec and shared;
+ * after a prune the removed candidates are subtracted, costing guesses x removed scores
+ * once a prune removes more candidates than it keeps, rescoring the kept ones is cheaper, so
+ * the histograms are dropped for the rest of the game and the player goes back to GuessSelector
+ * (which also stops early on guesses that can't win)
+ * picks the same guess as GuessSelector with the same strategy (same costs and tie-breaks)
+ * needs guesses x feedback ids ints, so it is only used for specs that fit MAX_ENTRIES
+ * one player's state, so each thread needs its own histograms
+ */
+
+import java.util.concurrent.ConcurrentHashMap; // import concurrent hash map
+
+public class PartitionHistograms {
+
+    // largest guesses x feedback ids table kept (32MB of counts)
+    static final long MAX_ENTRIES = 1L << 23;
+
+    // histograms of the full code space, by spec key, shared by every player
+    private static final ConcurrentHashMap<String, int[]> INITIAL = new ConcurrentHashMap<>();
+
+    private final FeedbackScorer scorer; // feedback for the code space
+    private final GuessStrategy strategy; // cost of a guess's partitions
+    private final int guessCount; // rows, one per code
+    private final int feedbackCount; // columns, one per feedback id
+    private final int[] counts; // candidates per guess and feedback id, row by row
+    private final int[] sizes; // scratch, one row for the strategy
+    private boolean current; // true if the histograms match the candidates
+    private boolean copied; // false until counts has been copied from the full code space histograms
+
+    /**
+     * PartitionHistograms
+     * @param scorer
+     * @param strategy
+     */
+    public PartitionHistograms(FeedbackScorer scorer, GuessStrategy strategy) {
+        if (!fits(scorer)) {
+            throw new IllegalArgumentException("too many partition histograms for " + scorer.getSpec());
+        }
+        this.scorer = scorer;
+        this.strategy = strategy;
+        this.guessCount = scorer.getCodeCount();
+        this.feedbackCount = scorer.getFeedbackCount();
+        this.counts = new int[guessCount * feedbackCount];
+        this.sizes = new int[feedbackCount];
+    }
+
+    /**
+     * fits
+     * @param scorer
+     * @return true if the histograms for every guess fit in MAX_ENTRIES
+     */
+    public static boolean fits(FeedbackScorer scorer) {
+        return (long) scorer.getCodeCount() * scorer.getFeedbackCount() <= MAX_ENTRIES;
+    }
+
+    /**
+     * start
+     * starts a new game with every code still possible
+     * the full code space histograms are only copied once they are needed
+     */
+    public void start() {
+        current = true;
+        copied = false;
+    }
+
+    /**
+     * isCurrent
+     * @return true if the histograms match the candidates
+     */
+    public boolean isCurrent() {
+        return current;
+    }
+
+    /**
+     * update
+     * subtracts the candidates removed by a prune, or drops the histograms if the prune
+     * kept fewer candidates than it removed
+     * @param removed candidates removed by the prune
+     * @param removedCount number of entries of removed in use
+     * @param remainingCount number of candidates after the prune
+     */
+    public void update(int[] removed, int removedCount, int remainingCount) {
+        if (!current) {
+            return;
+        }
+        if (removedCount > remainingCount) {
+            current = false; // rescoring what is left is cheaper from here on
+            return;
+        }
+        copyInitial();
+        CodeSpace codeSpace = scorer.getCodeSpace();
+        int[] feedback = new int[removedCount]; // feedback ids of the removed codes for one guess
+        for (int guess = 0, row = 0; guess < guessCount; guess++, row += feedbackCount) {
+            if (!codeSpace.isValid(guess)) {
+                continue;
+            }
+            scorer.scoreAll(guess, removed, 0, removedCount, feedback);
+            for (int i = 0; i < removedCount; i++) {
+                counts[row + feedback[i]]--;
+            }
+        }
+    }
+
+    /**
+     * selectGuess
+     * returns the code with the lowest cost, reading the costs from the histograms
+     * @param candidates codes that are still possible, matching the histograms
+     * @return guess
+     */
+    public int selectGuess(CandidateSet candidates) {
+        if (candidates.cardinality() <= 2) { // any candidate splits one or two codes as well as possible
+            return candidates.next(0);
+        }
+        copyInitial();
+        CodeSpace codeSpace = scorer.getCodeSpace();
+        long bestCost = Long.MAX_VALUE;
+        long bestKey = Long.MAX_VALUE;
+        for (int guess = 0, row = 0; guess < guessCount; guess++, row += feedbackCount) {
+            if (!codeSpace.isValid(guess)) {
+                continue;
+            }
+            int worst = 0;
+            for (int f = 0; f < feedbackCount; f++) {
+                sizes[f] = counts[row + f];
+                worst = Math.max(worst, sizes[f]);
+            }
+            long cost = strategy.cost(sizes, worst);
+            long key = ((candidates.contains(guess) ? 0L : 1L) << 32) | guess; // candidates first, then index
+            if (cost < bestCost || (cost == bestCost && key < bestKey)) {
+                bestCost = cost;
+                bestKey = key;
+            }
+        }
+        return (int) bestKey;
+    }
+
+    /**
+     * copyInitial
+     * fills counts with the full code space histograms at the start of a game
+     */
+    private void copyInitial() {
+        if (!copied) {
+            int[] initial = INITIAL.computeIfAbsent(OpeningBook.key(scorer.getSpec()), key -> fullHistograms());
+            System.arraycopy(initial, 0, counts, 0, counts.length);
+            copied = true;
+        }
+    }
+
+    /**
+     * fullHistograms
+     * scores every guess against every valid code
+     * @return histograms of the full code space
+     */
+    private int[] fullHistograms() {
+        int[] full = new int[guessCount * feedbackCount];
+        CandidateSet all = new CandidateSet(scorer.getCodeSpace());
+        int[] codes = new int[all.cardinality()];
+        all.toArray(codes);
+        CodeSpace codeSpace = scorer.getCodeSpace();
+        int[] feedback = new int[codes.length]; // feedback ids of every code for one guess
+        for (int guess = 0, row = 0; guess < guessCount; guess++, row += feedbackCount) {
+            if (!codeSpace.isValid(guess)) {
+                continue;
+            }
+            scorer.scoreAll(guess, codes, 0, codes.length, feedback);
+            for (int id : feedback) {
+                full[row + id]++;
+            }
+        }
+        return full;
+    }
+}
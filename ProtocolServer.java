@@ -0,0 +1,665 @@
+/**
+ * ProtocolServer
+ * many games per connection over a compact line protocol, served by one thread with an NIO
+ * selector; requests can be pipelined, every complete line in the input buffer is answered in
+ * order and the answers go out in one write
+ * requests (ids are chosen by the client, codes are letters, clues are "bbww" or "-" for none):
+ *   NEW <id> PLAY                          the server sets a code    -> OK <id>
+ *   NEW <id> SOLVE <difficulty> [strategy] the server guesses        -> GUESS <id> <code>
+ *   GUESS <id> <code>                      a guess at the server's code
+ *                                          -> RESULT <id> <clues> [WIN | LOSE <code>]
+ *   FEEDBACK <id> <clues>                  clues for the server's last guess
+ *                                          -> GUESS <id> <code> | RESULT <id> SOLVED <guesses> | RESULT <id> LOST
+ *                                             | RESULT <id> INCONSISTENT <attempts>
+ *                                          the feedback is checked as it is given, and a game ends INCONSISTENT
+ *                                          on the first answer no code can give, listing the attempts (from 1)
+ *                                          whose answers conflict
+ *   QUIT                                   -> BYE, then the connection is closed
+ * anything else gets ERROR <id or -> <reason>; a game ends with its RESULT and its id can be reused
+ * each connection reads into and writes from its own direct buffers, taken from a pool and given
+ * back when it closes; when the output buffer fills up, reading stops until it has been written
+ * every game runs on its own seed, drawn from its connection's stream; --log appends every game to a
+ * replay log (see ReplayLog)
+ * usage: java ProtocolServer [--port N] [--seed N] [--log file] [--colours X --length N --tries N --no-duplicates]
+ */
+
+import java.io.IOException; // import io exception
+import java.net.InetAddress; // import inet address
+import java.net.InetSocketAddress; // import inet socket address
+import java.net.StandardSocketOptions; // import socket options
+import java.nio.ByteBuffer; // import byte buffer
+import java.nio.channels.SelectionKey; // import selection key
+import java.nio.channels.Selector; // import selector
+import java.nio.channels.ServerSocketChannel; // import server socket channel
+import java.nio.channels.SocketChannel; // import socket channel
+import java.nio.charset.StandardCharsets; // import charsets
+import java.util.ArrayDeque; // import array deque
+import java.util.HashMap; // import hash map
+import java.util.Iterator; // import iterator
+
+public class ProtocolServer {
+
+    static final int DEFAULT_PORT = 4041;
+    static final int BUFFER_SIZE = 16 * 1024; // bytes per connection, for input and for output
+    static final int MAX_LINE = 256; // longest request
+    private static final int MAX_TOKENS = 5; // words in the longest request
+
+    private static final byte[] OK = ascii("OK ");
+    private static final byte[] GUESS = ascii("GUESS ");
+    private static final byte[] RESULT = ascii("RESULT ");
+    private static final byte[] ERROR = ascii("ERROR ");
+    private static final byte[] WIN = ascii(" WIN");
+    private static final byte[] LOSE = ascii(" LOSE ");
+    private static final byte[] SOLVED = ascii(" SOLVED ");
+    private static final byte[] LOST = ascii(" LOST");
+    private static final byte[] INCONSISTENT = ascii(" INCONSISTENT");
+    private static final byte[] BYE = ascii("BYE\n");
+
+    private final GameService service; // shared scorer, books and trees
+    private final FeedbackScorer scorer; // feedback for the code space
+    private final GameSpec spec; // rules of every game
+    private final int solved; // feedback id for a correct guess
+    private final int maxResponse; // longest answer to one request, in bytes
+    private final ArrayDeque<ByteBuffer> buffers = new ArrayDeque<>(); // direct buffers of closed connections
+    private long requests; // requests answered so far
+
+    /**
+     * ProtocolServer
+     * @param service
+     */
+    public ProtocolServer(GameService service) {
+        if (service.getScorer() == null) {
+            throw new IllegalArgumentException("too many codes to serve: " + service.getSpec());
+        }
+        this.service = service;
+        this.scorer = service.getScorer();
+        this.spec = service.getSpec();
+        this.solved = Feedback.solved(spec.getLength());
+        int tries = spec.getMaxTries();
+        this.maxResponse = 64 + 2 * spec.getLength() + tries * (String.valueOf(tries).length() + 1); // room for every attempt
+        if (maxResponse > BUFFER_SIZE) {
+            throw new IllegalArgumentException("too many tries to serve: " + spec);
+        }
+    }
+
+    /**
+     * serve
+     * answers requests until the server channel is closed
+     * @param server bound server channel
+     */
+    public void serve(ServerSocketChannel server) throws IOException {
+        server.configureBlocking(false);
+        try (Selector selector = Selector.open()) {
+            server.register(selector, SelectionKey.OP_ACCEPT);
+            while (server.isOpen()) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept(server, selector);
+                        continue;
+                    }
+                    Connection connection = (Connection) key.attachment();
+                    try {
+                        connection.process(key.isReadable());
+                    } catch (IOException e) {
+                        connection.close(); // dropped by the client
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * accept
+     * registers every waiting connection
+     * @param server
+     * @param selector
+     */
+    private void accept(ServerSocketChannel server, Selector selector) throws IOException {
+        SocketChannel channel;
+        while ((channel = server.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            Connection connection = new Connection(channel);
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        }
+    }
+
+    /**
+     * buffer
+     * @return a cleared direct buffer, reused if a closed connection gave one back
+     */
+    private ByteBuffer buffer() {
+        ByteBuffer buffer = buffers.poll();
+        return buffer != null ? buffer : ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    /**
+     * getRequestCount
+     * only read it from the serving thread, or after serve() has returned
+     * @return requests answered so far
+     */
+    public long getRequestCount() {
+        return requests;
+    }
+
+    /**
+     * ascii
+     * @param text
+     * @return bytes of the text
+     */
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Game
+     * one game of a connection
+     */
+    private static final class Game {
+        int secret = -1; // server's code when the client guesses, -1 when the server guesses
+        ComputerPlayer player; // server's player when it guesses
+        ConsistencyChecker checker; // gives the player the client's feedback and checks it
+        int guess; // server's last guess
+        int attempt; // guesses made so far
+        GameRecord record; // game for the replay log, or null if it isn't recorded
+    }
+
+    /**
+     * Connection
+     * the games, buffers and parser state of one client
+     */
+    private final class Connection {
+        private final SocketChannel channel;
+        private SelectionKey key;
+        private ByteBuffer in; // requests not answered yet, in write mode
+        private ByteBuffer out; // answers not sent yet, in write mode
+        private final HashMap<Integer, Game> games = new HashMap<>(); // by client id
+        private final CodeRandom random; // seeds of the connection's games
+        private final byte[] line = new byte[MAX_LINE]; // request being answered
+        private final int[] starts = new int[MAX_TOKENS]; // first byte of each word of the line
+        private final int[] ends = new int[MAX_TOKENS]; // byte after each word
+        private final char[] code; // code being parsed or written
+        private boolean closing; // close once the answers are out
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+            this.in = buffer();
+            this.out = buffer();
+            this.random = service.split();
+            this.code = new char[spec.getLength()];
+        }
+
+        /**
+         * process
+         * reads what has arrived, then answers every complete request while there is room for the
+         * answers and writes as much as the socket takes, for as long as the socket takes it all and
+         * complete requests are left; a short write waits for OP_WRITE with the rest still queued
+         * @param readable true if the channel has data to read
+         */
+        void process(boolean readable) throws IOException {
+            if (readable && channel.read(in) == -1) {
+                close();
+                return;
+            }
+            while (true) {
+                in.flip();
+                while (!closing && out.remaining() >= maxResponse) {
+                    int end = indexOf(in, (byte) '\n');
+                    if (end == -1) {
+                        if (in.remaining() >= MAX_LINE) {
+                            error(-1, "request too long");
+                            closing = true;
+                        }
+                        break;
+                    }
+                    int length = end - in.position();
+                    if (length > MAX_LINE) {
+                        error(-1, "request too long");
+                        closing = true;
+                        break;
+                    }
+                    in.get(line, 0, length).get(); // the line and its newline
+                    if (length > 0 && line[length - 1] == '\r') {
+                        length--;
+                    }
+                    answer(length);
+                }
+                boolean pending = !closing && indexOf(in, (byte) '\n') != -1; // requests left for lack of room
+                in.compact();
+
+                out.flip();
+                channel.write(out);
+                out.compact();
+                if (out.position() > 0) {
+                    key.interestOps(SelectionKey.OP_WRITE); // stop reading until the answers are out
+                    return;
+                }
+                if (closing) {
+                    close();
+                    return;
+                }
+                if (!pending) {
+                    key.interestOps(SelectionKey.OP_READ);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * indexOf
+         * @param buffer in read mode
+         * @param value
+         * @return absolute index of the first byte with the value, or -1
+         */
+        private int indexOf(ByteBuffer buffer, byte value) {
+            for (int i = buffer.position(); i < buffer.limit(); i++) {
+                if (buffer.get(i) == value) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * answer
+         * answers one request
+         * @param length bytes of the request in line
+         */
+        private void answer(int length) {
+            int tokens = split(length);
+            if (tokens == 0) {
+                return;
+            }
+            requests++;
+            int id = tokens > 1 ? parseId(1) : -1;
+            if (is(0, "QUIT")) {
+                out.put(BYE);
+                closing = true;
+            } else if (tokens < 3 || id < 0) {
+                error(id, "bad request");
+            } else if (is(0, "NEW")) {
+                newGame(id, tokens);
+            } else if (is(0, "GUESS")) {
+                clientGuess(id);
+            } else if (is(0, "FEEDBACK")) {
+                clientFeedback(id);
+            } else {
+                error(id, "unknown request");
+            }
+        }
+
+        /**
+         * newGame
+         * NEW id PLAY, or NEW id SOLVE difficulty [strategy]
+         * @param id
+         * @param tokens
+         */
+        private void newGame(int id, int tokens) {
+            if (games.containsKey(id)) {
+                error(id, "game already running");
+                return;
+            }
+            Game game = new Game();
+            long seed = random.nextLong(); // the game's own seed
+            if (is(2, "PLAY")) {
+                game.secret = scorer.encode(new CodeRandom(seed).nextCode(spec));
+                game.record = service.newRecord(GameRecord.PLAY, 0, null, seed);
+                games.put(id, game);
+                out.put(OK);
+                putInt(id);
+                out.put((byte) '\n');
+                return;
+            }
+            int difficulty = tokens < 4 ? 0 : is(3, "EASY") ? ComputerPlayer.EASY : is(3, "MEDIUM") ? ComputerPlayer.MEDIUM
+                    : is(3, "HARD") ? ComputerPlayer.HARD : 0;
+            GuessStrategy strategy = GuessStrategy.MINIMAX;
+            if (tokens > 4) {
+                try {
+                    strategy = GuessStrategy.fromName(new String(line, starts[4], ends[4] - starts[4], StandardCharsets.US_ASCII));
+                } catch (IllegalArgumentException e) {
+                    difficulty = 0;
+                }
+            }
+            if (!is(2, "SOLVE") || difficulty == 0) {
+                error(id, "unknown game");
+                return;
+            }
+            game.player = service.newPlayer(difficulty, strategy, new CodeRandom(seed));
+            game.player.reset();
+            game.checker = new ConsistencyChecker(scorer, game.player);
+            game.record = service.newRecord(GameRecord.SOLVE, difficulty, strategy, seed);
+            games.put(id, game);
+            serverGuess(id, game);
+        }
+
+        /**
+         * clientGuess
+         * GUESS id code, scored against the server's code
+         * @param id
+         */
+        private void clientGuess(int id) {
+            Game game = games.get(id);
+            if (game == null || game.secret == -1) {
+                error(id, "no game to guess");
+                return;
+            }
+            int guess = parseCode(2);
+            if (guess == -1) {
+                error(id, "invalid code");
+                return;
+            }
+            game.attempt++;
+            int feedback = scorer.score(game.secret, guess);
+            if (game.record != null) {
+                game.record.add(code, feedback);
+            }
+            out.put(RESULT);
+            putInt(id);
+            out.put((byte) ' ');
+            putClues(feedback);
+            if (feedback == solved) {
+                out.put(WIN);
+                finish(id);
+            } else if (game.attempt >= spec.getMaxTries()) {
+                out.put(LOSE);
+                putCode(game.secret);
+                finish(id);
+            }
+            out.put((byte) '\n');
+        }
+
+        /**
+         * clientFeedback
+         * FEEDBACK id clues, for the server's last guess
+         * @param id
+         */
+        private void clientFeedback(int id) {
+            Game game = games.get(id);
+            if (game == null || game.player == null) {
+                error(id, "no game to give feedback for");
+                return;
+            }
+            int feedback = parseClues(2);
+            if (feedback == -1) {
+                error(id, "invalid clues");
+                return;
+            }
+            if (game.record != null) {
+                scorer.getCodeSpace().decode(game.guess, code);
+                game.record.add(code, feedback);
+            }
+            if (!game.checker.accept(game.guess, feedback)) { // before solved and lost, so neither hides a contradiction
+                result(id, INCONSISTENT);
+                for (int turn : game.checker.conflict()) {
+                    out.put((byte) ' ');
+                    putInt(turn + 1);
+                }
+                out.put((byte) '\n');
+            } else if (feedback == solved) {
+                result(id, SOLVED);
+                putInt(game.attempt);
+                out.put((byte) '\n');
+            } else if (game.attempt >= spec.getMaxTries()) {
+                result(id, LOST);
+                out.put((byte) '\n');
+            } else {
+                serverGuess(id, game);
+            }
+        }
+
+        /**
+         * serverGuess
+         * makes and sends the server's next guess
+         * @param id
+         * @param game
+         */
+        private void serverGuess(int id, Game game) {
+            game.guess = game.player.nextGuess();
+            game.attempt++;
+            out.put(GUESS);
+            putInt(id);
+            out.put((byte) ' ');
+            putCode(game.guess);
+            out.put((byte) '\n');
+        }
+
+        /**
+         * result
+         * ends a game the server was guessing
+         * @param id
+         * @param outcome
+         */
+        private void result(int id, byte[] outcome) {
+            finish(id);
+            out.put(RESULT);
+            putInt(id);
+            out.put(outcome);
+        }
+
+        /**
+         * finish
+         * ends a game, recording it if it is recorded
+         * @param id
+         */
+        private void finish(int id) {
+            Game game = games.remove(id);
+            if (game != null && game.record != null) {
+                service.record(game.record);
+            }
+        }
+
+        /**
+         * error
+         * @param id request's game id, or -1
+         * @param reason
+         */
+        private void error(int id, String reason) {
+            out.put(ERROR);
+            if (id >= 0) {
+                putInt(id);
+            } else {
+                out.put((byte) '-');
+            }
+            out.put((byte) ' ').put(ascii(reason)).put((byte) '\n');
+        }
+
+        /**
+         * split
+         * finds the words of the line
+         * @param length
+         * @return number of words, at most MAX_TOKENS
+         */
+        private int split(int length) {
+            int tokens = 0;
+            int i = 0;
+            while (tokens < MAX_TOKENS) {
+                while (i < length && line[i] == ' ') {
+                    i++;
+                }
+                if (i == length) {
+                    break;
+                }
+                starts[tokens] = i;
+                while (i < length && line[i] != ' ') {
+                    i++;
+                }
+                ends[tokens++] = i;
+            }
+            return tokens;
+        }
+
+        /**
+         * is
+         * @param token
+         * @param word upper case
+         * @return true if the word at the token matches, in any case
+         */
+        private boolean is(int token, String word) {
+            if (ends[token] - starts[token] != word.length()) {
+                return false;
+            }
+            for (int i = 0; i < word.length(); i++) {
+                if (Character.toUpperCase(line[starts[token] + i]) != word.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * parseId
+         * @param token
+         * @return the id, or -1 if the word isn't a number below a billion
+         */
+        private int parseId(int token) {
+            int length = ends[token] - starts[token];
+            if (length == 0 || length > 9) {
+                return -1;
+            }
+            int id = 0;
+            for (int i = starts[token]; i < ends[token]; i++) {
+                if (line[i] < '0' || line[i] > '9') {
+                    return -1;
+                }
+                id = id * 10 + (line[i] - '0');
+            }
+            return id;
+        }
+
+        /**
+         * parseCode
+         * @param token
+         * @return code index, or -1 if the word isn't a valid code
+         */
+        private int parseCode(int token) {
+            if (ends[token] - starts[token] != code.length) {
+                return -1;
+            }
+            for (int i = 0; i < code.length; i++) {
+                code[i] = Character.toUpperCase((char) line[starts[token] + i]);
+            }
+            int index = scorer.encode(code);
+            return index != -1 && scorer.getCodeSpace().isValid(index) ? index : -1;
+        }
+
+        /**
+         * parseClues
+         * @param token
+         * @return feedback id, or -1 if the word isn't "-" or up to length 'b' and 'w'
+         */
+        private int parseClues(int token) {
+            int length = ends[token] - starts[token];
+            if (length == 1 && line[starts[token]] == '-') {
+                return 0;
+            }
+            if (length > spec.getLength()) {
+                return -1;
+            }
+            int black = 0;
+            for (int i = starts[token]; i < ends[token]; i++) {
+                if (line[i] == 'b' || line[i] == 'B') {
+                    black++;
+                } else if (line[i] != 'w' && line[i] != 'W') {
+                    return -1;
+                }
+            }
+            return Feedback.id(black, length - black, spec.getLength());
+        }
+
+        /**
+         * putInt
+         * writes a non-negative number in decimal
+         * @param value
+         */
+        private void putInt(int value) {
+            int digits = 1;
+            for (int rest = value / 10; rest > 0; rest /= 10) {
+                digits++;
+            }
+            int position = out.position();
+            for (int i = digits - 1; i >= 0; i--, value /= 10) {
+                out.put(position + i, (byte) ('0' + value % 10));
+            }
+            out.position(position + digits);
+        }
+
+        /**
+         * putCode
+         * @param index
+         */
+        private void putCode(int index) {
+            scorer.getCodeSpace().decode(index, code);
+            for (char c : code) {
+                out.put((byte) c);
+            }
+        }
+
+        /**
+         * putClues
+         * @param feedback
+         */
+        private void putClues(int feedback) {
+            int black = Feedback.black(feedback, spec.getLength());
+            int white = Feedback.white(feedback, spec.getLength());
+            if (black + white == 0) {
+                out.put((byte) '-');
+            }
+            for (int i = 0; i < black; i++) {
+                out.put((byte) 'b');
+            }
+            for (int i = 0; i < white; i++) {
+                out.put((byte) 'w');
+            }
+        }
+
+        /**
+         * close
+         * closes the channel and gives the buffers back to the pool
+         */
+        void close() {
+            if (key != null) {
+                key.cancel();
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // closing anyway
+            }
+            for (Game game : games.values()) { // games the client left unfinished
+                if (game.record != null) {
+                    service.record(game.record);
+                }
+            }
+            games.clear();
+            if (in != null) {
+                buffers.push(in.clear());
+                buffers.push(out.clear());
+                in = null;
+                out = null;
+            }
+        }
+    }
+
+    // main method
+    public static void main(String[] args) throws IOException {
+        GameSpec spec = GameSpec.fromArgs(args);
+        String seed = Simulation.option(args, "--seed");
+        String port = Simulation.option(args, "--port");
+        CodeRandom random = seed != null ? new CodeRandom(Long.parseLong(seed)) : new CodeRandom();
+        GameService service = new GameService(spec, random);
+        ProtocolServer server = new ProtocolServer(service);
+        ReplayLog.openFor(service, Simulation.option(args, "--log"));
+        try (ServerSocketChannel channel = ServerSocketChannel.open()) {
+            channel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port != null ? Integer.parseInt(port) : DEFAULT_PORT), 4096);
+            System.out.println("Codebreaker protocol server for " + spec + " on port " + channel.socket().getLocalPort());
+            server.serve(channel);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+/**
+ * ReplayLog
+ * an append-only binary file of GameRecords, written by the servers and the console game (--log file)
+ * and read back to reproduce games or to replay real traffic as a benchmark
+ * the file starts with MAGIC and VERSION, then records follow one after another (see GameRecord)
+ * records are collected in one buffer and written when it fills up and on close, so a busy server
+ * doesn't make a write call per game; appending from many sessions at once is thread safe
+ * reading memory-maps the file a window at a time, so logs larger than memory are scanned without
+ * copying them through a read buffer
+ * replaying verifies every record in parallel (each game on its own seed, so the order doesn't matter)
+ * usage: java ReplayLog file [--repeat N]
+ *        checks that every game plays out as recorded, prints the mismatches, the number of games
+ *        and turns and the games per second; --repeat replays the whole log N times, as a benchmark
+ */
+
+import java.io.Closeable; // import closeable
+import java.io.IOException; // import io exception
+import java.nio.ByteBuffer; // import byte buffer
+import java.nio.MappedByteBuffer; // import mapped byte buffer
+import java.nio.channels.FileChannel; // import file channel
+import java.nio.file.Path; // import path
+import java.nio.file.Paths; // import paths
+import java.nio.file.StandardOpenOption; // import open options
+import java.util.ArrayList; // import array list
+import java.util.List; // import list
+import java.util.concurrent.ConcurrentHashMap; // import concurrent hash map
+import java.util.concurrent.atomic.AtomicLong; // import atomic long
+import java.util.function.Consumer; // import consumer
+
+public class ReplayLog implements Closeable {
+
+    static final int MAGIC = 0x4342524C; // "CBRL"
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 6; // magic and version
+    static final int BUFFER_SIZE = 64 * 1024; // records kept before writing
+    static final long WINDOW_SIZE = 256L * 1024 * 1024; // bytes mapped at a time when reading
+
+    private final FileChannel channel; // log file, opened for appending
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE); // records not written yet
+    private long records; // records appended since the log was opened
+
+    /**
+     * ReplayLog
+     * opens a log for appending, creating it if needed
+     * @param file
+     */
+    public ReplayLog(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        if (channel.size() == 0) {
+            buffer.putInt(MAGIC).putShort(VERSION);
+        } else {
+            checkHeader(file);
+        }
+    }
+
+    /**
+     * append
+     * @param record finished or abandoned game
+     */
+    public synchronized void append(GameRecord record) throws IOException {
+        int size = record.size();
+        if (buffer.remaining() < size) {
+            flush();
+        }
+        if (size > buffer.capacity()) { // too large for the buffer, written on its own
+            ByteBuffer large = ByteBuffer.allocate(size);
+            record.write(large);
+            write(large.flip());
+        } else {
+            record.write(buffer);
+        }
+        records++;
+    }
+
+    /**
+     * flush
+     * writes the buffered records to the file
+     */
+    public synchronized void flush() throws IOException {
+        write(buffer.flip());
+        buffer.clear();
+    }
+
+    /**
+     * write
+     * @param data in read mode, written completely
+     */
+    private void write(ByteBuffer data) throws IOException {
+        while (data.hasRemaining()) {
+            channel.write(data);
+        }
+    }
+
+    /**
+     * close
+     * writes what is buffered and closes the file
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel.isOpen()) {
+            flush();
+            channel.close();
+        }
+    }
+
+    /**
+     * getRecords
+     * @return records appended since the log was opened
+     */
+    public synchronized long getRecords() {
+        return records;
+    }
+
+    /**
+     * openFor
+     * records a server's games in a log, closed (and so written out) when the JVM shuts down
+     * @param service
+     * @param file log file, or null to record nothing
+     */
+    static void openFor(GameService service, String file) throws IOException {
+        if (file == null) {
+            return;
+        }
+        ReplayLog log = new ReplayLog(Paths.get(file));
+        service.setReplayLog(log);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            service.setReplayLog(null);
+            try {
+                log.close();
+            } catch (IOException e) {
+                System.err.println("Replay log not written: " + e.getMessage());
+            }
+        }));
+    }
+
+    /**
+     * checkHeader
+     * @param file
+     * @throws IOException if the file isn't a replay log of this version
+     */
+    private static void checkHeader(Path file) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && in.read(header) != -1) {
+                // read until the header is complete or the file ends
+            }
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getShort() != VERSION) {
+                throw new IOException("not a replay log: " + file);
+            }
+        }
+    }
+
+    /**
+     * scan
+     * reads every record of a log, memory-mapping it a window at a time
+     * @param file
+     * @param action called with each record, in file order
+     * @return number of records
+     * @throws IOException if the file isn't a replay log, or it ends in the middle of a record
+     */
+    public static long scan(Path file, Consumer<GameRecord> action) throws IOException {
+        checkHeader(file);
+        long count = 0;
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = in.size();
+            long position = HEADER_SIZE;
+            long windowStart = position;
+            MappedByteBuffer window = in.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(WINDOW_SIZE, size - windowStart));
+            while (position < size) {
+                if (position + 4 > windowStart + window.limit()) { // size field crosses the window
+                    windowStart = position;
+                    window = in.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(WINDOW_SIZE, size - windowStart));
+                }
+                int recordSize = window.getInt((int) (position - windowStart));
+                if (recordSize < 0 || position + 4 + recordSize > size) {
+                    throw new IOException("log ends in the middle of a record at byte " + position + ": " + file);
+                }
+                if (position + 4 + recordSize > windowStart + window.limit()) { // record crosses the window
+                    windowStart = position;
+                    window = in.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(Math.max(WINDOW_SIZE, 4 + recordSize), size - windowStart));
+                }
+                window.position((int) (position - windowStart) + 4);
+                action.accept(GameRecord.read(window));
+                position += 4 + recordSize;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // main method
+    public static void main(String[] args) throws IOException {
+        List<String> values = Simulation.positional(args);
+        if (values.isEmpty()) {
+            System.out.println("usage: java ReplayLog file [--repeat N]");
+            return;
+        }
+        String repeat = Simulation.option(args, "--repeat");
+        int passes = repeat != null ? Integer.parseInt(repeat) : 1;
+
+        long start = System.nanoTime();
+        List<GameRecord> records = new ArrayList<>();
+        scan(Paths.get(values.get(0)), records::add);
+        double scanSeconds = (System.nanoTime() - start) / 1e9;
+
+        ConcurrentHashMap<GameSpec, GameService> services = new ConcurrentHashMap<>(); // one per spec, shares scorers, books and trees
+        AtomicLong mismatches = new AtomicLong();
+        long turns = records.stream().mapToLong(GameRecord::getTurns).sum();
+        start = System.nanoTime();
+        for (int pass = 0; pass < passes; pass++) {
+            boolean report = pass == 0;
+            records.parallelStream().forEach(record -> {
+                GameService service = services.computeIfAbsent(record.getSpec(), spec -> new GameService(spec, new CodeRandom(0)));
+                String difference = record.verify(service);
+                if (difference != null && report) {
+                    mismatches.incrementAndGet();
+                    System.out.println("Mismatch in " + (record.getKind() == GameRecord.PLAY ? "play" : "solve") + " game with seed "
+                            + record.getSeed() + " (" + record.getSpec() + "), " + difference);
+                }
+            });
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("Games: %d, turns: %d, read in %.3f s%n", records.size(), turns, scanSeconds);
+        System.out.printf("Replayed %d times in %.3f s, %.1f games/second%n", passes, seconds, records.size() * (double) passes / seconds);
+        System.out.println(mismatches.get() == 0 ? "Every game played out as recorded" : mismatches.get() + " games played out differently");
+        if (mismatches.get() > 0) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * SampledPlayer
+ * the computer codebreaker for code spaces too large to list (no FeedbackScorer), one game at a time,
+ * working on codes as letters
+ * 1. easy guesses any code
+ * 2. medium guesses a random code that fits every answer so far (ConsistentSampler)
+ * 3. hard has the constraint solver find a sample of such codes, scores each one against the others
+ *    and guesses the one whose clues split the sample best by its GuessStrategy
+ * every random choice comes from the game's own CodeRandom, so a seed replays the same game
+ * (see GameRecord.verify)
+ * not thread safe, one player per game
+ */
+
+import java.util.Arrays; // import arrays
+import java.util.List; // import list
+
+public final class SampledPlayer {
+
+    static final int HARD_SAMPLE = 64; // consistent codes hard mode weighs against each other
+
+    private final GameSpec spec; // rules of the game
+    private final int difficulty; // ComputerPlayer.EASY, MEDIUM or HARD
+    private final GuessStrategy strategy; // how hard mode weighs its sample
+    private final CodeRandom random; // the game's random stream
+    private final ConsistentSampler sampler; // answers so far, as constraints
+    private final ConstraintSolver solver; // backtracking search over the sampler's constraints, for hard mode
+
+    /**
+     * SampledPlayer
+     * @param spec
+     * @param difficulty ComputerPlayer.EASY, MEDIUM or HARD
+     * @param strategy how hard mode weighs its sample
+     * @param random the game's own random stream
+     */
+    public SampledPlayer(GameSpec spec, int difficulty, GuessStrategy strategy, CodeRandom random) {
+        if (difficulty < ComputerPlayer.EASY || difficulty > ComputerPlayer.HARD) {
+            throw new IllegalArgumentException("unknown difficulty: " + difficulty);
+        }
+        this.spec = spec;
+        this.difficulty = difficulty;
+        this.strategy = strategy;
+        this.random = random;
+        this.sampler = new ConsistentSampler(spec);
+        this.solver = new ConstraintSolver(sampler.getConstraints());
+    }
+
+    /**
+     * nextGuess
+     * picks the next guess based on the difficulty
+     * @return guess, or null if the answers so far rule out every code (never for easy)
+     */
+    public char[] nextGuess() {
+        if (difficulty == ComputerPlayer.EASY) {
+            return random.nextCode(spec);
+        } else if (difficulty == ComputerPlayer.MEDIUM) {
+            return sampler.sample(random);
+        }
+        List<int[]> sample = solver.solve(HARD_SAMPLE, ConstraintSolver.SEARCH_NODES, random); // same budget as the checker's
+        if (sample.isEmpty()) {
+            return null;
+        }
+        char[][] codes = new char[sample.size()][];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = solver.getConstraints().letters(sample.get(i));
+        }
+        char[] bestGuess = codes[0];
+        long bestCost = Long.MAX_VALUE;
+        int[] sizes = new int[spec.getFeedbackCount()]; // sample codes left by each feedback
+        for (char[] guess : codes) {
+            Arrays.fill(sizes, 0);
+            int worst = 0;
+            for (char[] other : codes) {
+                worst = Math.max(worst, ++sizes[Feedback.score(other, guess)]);
+            }
+            long cost = strategy.cost(sizes, worst);
+            if (cost < bestCost) {
+                bestCost = cost;
+                bestGuess = guess;
+            }
+        }
+        return bestGuess;
+    }
+
+    /**
+     * feedback
+     * adds the answer for a guess to the constraints the next guesses must fit
+     * @param guess
+     * @param feedback feedback id
+     */
+    public void feedback(char[] guess, int feedback) {
+        sampler.feedback(guess, feedback);
+    }
+
+    public int getDifficulty() {
+        return difficulty;
+    }
+}
@@ -0,0 +1,242 @@
+/**
+ * Simulation
+ * plays computer-guesses games without any user input, computing the feedback automatically
+ * usage: java Simulation [easy|medium|hard] [all|number of games] [seed] [--colours X --length N --tries N --no-duplicates]
+ *        [--strategy minimax|expected-size|entropy|most-parts] (how hard picks its guesses)
+ *        [--tree file] (plays hard by walking a greedy tree exported by StrategyTree)
+ * "all" plays every secret code once, a number plays that many random secret codes
+ * prints the guess count distribution, mean, worst case and games per second
+ * games are spread over all cores; each worker's player has its own split random stream, reseeded
+ * with every game's own seed, so results don't depend on the thread count and a seed replays a run
+ */
+
+import java.io.IOException; // import io exception
+import java.nio.file.Paths; // import paths
+import java.util.ArrayList; // import array list
+import java.util.List; // import list
+import java.util.concurrent.atomic.AtomicLongArray; // import atomic long array
+import java.util.stream.IntStream; // import int stream
+
+public class Simulation {
+
+    private final FeedbackScorer scorer; // feedback for the code space
+    private final int difficulty; // ComputerPlayer.EASY, MEDIUM or HARD
+    private final int maxTries; // guesses before a game counts as lost
+    private final CodeRandom random = new CodeRandom(0); // root stream, split once for each worker thread
+    private final ThreadLocal<ComputerPlayer> players; // one player per worker thread
+
+    /**
+     * Simulation
+     * hard games use minimax
+     * @param scorer
+     * @param difficulty
+     */
+    public Simulation(FeedbackScorer scorer, int difficulty) {
+        this(scorer, difficulty, GuessStrategy.MINIMAX);
+    }
+
+    /**
+     * Simulation
+     * @param scorer
+     * @param difficulty
+     * @param strategy how hard games pick their guesses
+     */
+    public Simulation(FeedbackScorer scorer, int difficulty, GuessStrategy strategy) {
+        this.scorer = scorer;
+        this.difficulty = difficulty;
+        this.maxTries = scorer.getSpec().getMaxTries();
+        OpeningBook book = difficulty == ComputerPlayer.HARD ? OpeningBook.forScorer(scorer, strategy) : null; // shared by every worker
+        this.players = ThreadLocal.withInitial(() -> new ComputerPlayer(scorer, difficulty, strategy, split(), book));
+    }
+
+    /**
+     * Simulation
+     * plays hard games by walking a strategy tree
+     * @param scorer
+     * @param tree
+     */
+    public Simulation(FeedbackScorer scorer, StrategyTree tree) {
+        this.scorer = scorer;
+        this.difficulty = ComputerPlayer.HARD;
+        this.maxTries = scorer.getSpec().getMaxTries();
+        this.players = ThreadLocal.withInitial(() -> new ComputerPlayer(scorer, tree, split()));
+    }
+
+    /**
+     * split
+     * @return an independent random stream for a new worker thread
+     */
+    private synchronized CodeRandom split() {
+        return random.split();
+    }
+
+    /**
+     * playGame
+     * plays one game against a secret code
+     * @param secret
+     * @param seed seed for the player's random choices
+     * @return number of guesses used, or maxTries + 1 if the code wasn't guessed
+     */
+    public int playGame(int secret, long seed) {
+        return playGame(secret, seed, null);
+    }
+
+    /**
+     * playGame
+     * same as above, also timing each turn (the player's guess and its update for the feedback)
+     * @param secret
+     * @param seed seed for the player's random choices
+     * @param turnNanos filled with the nanoseconds of each turn played, from index 0, or null
+     * @return number of guesses used, or maxTries + 1 if the code wasn't guessed
+     */
+    public int playGame(int secret, long seed, long[] turnNanos) {
+        ComputerPlayer player = players.get();
+        player.reset();
+        player.getRandom().setSeed(seed);
+        for (int attempt = 1; attempt <= maxTries; attempt++) {
+            long start = turnNanos != null ? System.nanoTime() : 0;
+            int guess = player.nextGuess();
+            int feedback = scorer.score(secret, guess);
+            if (feedback == scorer.solvedId()) {
+                if (turnNanos != null) {
+                    turnNanos[attempt - 1] = System.nanoTime() - start;
+                }
+                return attempt;
+            }
+            player.feedback(guess, feedback);
+            if (turnNanos != null) {
+                turnNanos[attempt - 1] = System.nanoTime() - start;
+            }
+        }
+        return maxTries + 1;
+    }
+
+    /**
+     * run
+     * plays a number of games in parallel
+     * @param games number of games, or -1 to play every valid secret code once
+     * @param seed
+     * @return number of games for each guess count (index maxTries + 1 counts lost games)
+     */
+    public long[] run(int games, long seed) {
+        boolean all = games < 0;
+        int total = all ? scorer.getCodeCount() : games;
+        CodeSpace codeSpace = scorer.getCodeSpace();
+        AtomicLongArray counts = new AtomicLongArray(maxTries + 2);
+        IntStream.range(0, total).parallel().forEach(game -> {
+            long gameSeed = seed * 31 + game; // each game gets its own seed
+            int secret = all ? game : Math.floorMod(mix(gameSeed), scorer.getCodeCount());
+            while (!codeSpace.isValid(secret)) {
+                if (all) {
+                    return; // not a playable code
+                }
+                secret = Math.floorMod(mix(++gameSeed), scorer.getCodeCount());
+            }
+            counts.incrementAndGet(playGame(secret, gameSeed));
+        });
+
+        long[] result = new long[counts.length()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = counts.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * mix
+     * scrambles a game seed into a secret code choice (splitmix64 finaliser)
+     * @param value
+     * @return scrambled value
+     */
+    private static int mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return (int) (value ^ (value >>> 31));
+    }
+
+    /**
+     * positional
+     * drops the --option value pairs (and --no-duplicates) from the arguments
+     * @param args
+     * @return remaining arguments in order
+     */
+    static List<String> positional(String[] args) {
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].startsWith("--")) {
+                if (!args[i].equals("--no-duplicates")) {
+                    i++; // skip the option's value
+                }
+            } else {
+                values.add(args[i]);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * option
+     * @param args
+     * @param name option name, e.g. "--tree"
+     * @return value given after the option, or null if it isn't there
+     */
+    static String option(String[] args, String name) {
+        for (int i = 0; i + 1 < args.length; i++) {
+            if (args[i].equals(name)) {
+                return args[i + 1];
+            }
+        }
+        return null;
+    }
+
+    // main method
+    public static void main(String[] args) throws IOException {
+        List<String> values = positional(args);
+        String level = values.size() > 0 ? values.get(0).toLowerCase() : "hard"; // difficulty name
+        int difficulty = level.equals("easy") ? ComputerPlayer.EASY : level.equals("medium") ? ComputerPlayer.MEDIUM : ComputerPlayer.HARD;
+        int games = values.size() > 1 && !values.get(1).equalsIgnoreCase("all") ? Integer.parseInt(values.get(1)) : -1; // -1 plays every code
+        long seed = values.size() > 2 ? Long.parseLong(values.get(2)) : 0; // seed for reproducible runs
+        GameSpec spec = GameSpec.fromArgs(args); // rules, classic unless changed by options
+
+        String treeFile = option(args, "--tree"); // precomputed strategy tree, if any
+        String strategyName = option(args, "--strategy"); // hard mode guess rule
+        GuessStrategy strategy = strategyName != null ? GuessStrategy.fromName(strategyName) : GuessStrategy.MINIMAX;
+
+        FeedbackScorer scorer = FeedbackScorer.forSpec(spec);
+        Simulation simulation;
+        if (treeFile != null) {
+            StrategyTree tree = StrategyTree.load(Paths.get(treeFile), spec);
+            simulation = new Simulation(scorer, tree);
+            level = "tree (" + tree.getStrategy() + ")";
+        } else {
+            simulation = new Simulation(scorer, difficulty, strategy);
+            if (difficulty == ComputerPlayer.HARD) {
+                level += " (" + strategy + ")";
+            }
+        }
+        long start = System.nanoTime();
+        long[] counts = simulation.run(games, seed);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long played = 0, solved = 0, guesses = 0;
+        int worst = 0;
+        System.out.println("Spec: " + spec + ", difficulty: " + level);
+        for (int tries = 1; tries < counts.length; tries++) {
+            played += counts[tries];
+            if (counts[tries] == 0) {
+                continue;
+            }
+            if (tries <= simulation.maxTries) {
+                solved += counts[tries];
+                guesses += counts[tries] * tries;
+                worst = tries;
+                System.out.println(tries + " guesses: " + counts[tries]);
+            } else {
+                System.out.println("not solved: " + counts[tries]);
+            }
+        }
+        System.out.println("Games: " + played + ", solved: " + solved);
+        System.out.printf("Mean guesses: %.4f, worst case: %d%n", solved == 0 ? 0.0 : (double) guesses / solved, worst);
+        System.out.printf("Games/second: %.1f (%.3f s)%n", played / seconds, seconds);
+    }
+}
@@ -0,0 +1,272 @@
+/**
+ * SolverReport
+ * plays every secret code once at each difficulty and writes a report that can be diffed against a
+ * stored baseline, so a change that makes the computer guess worse or allocate more fails the build
+ * for each difficulty the report has the guess count histogram, games solved, mean and worst case,
+ * the mean and p99 turn (one guess plus the update for its feedback) in microseconds, and the bytes
+ * allocated per game
+ * games run on one thread so turns are timed without contention and allocations can be counted per
+ * thread; each game is seeded with its secret's index, so quality figures are the same every run;
+ * every code is played a few times over and the timings of the fastest pass are kept, which filters
+ * out most of the noise from the garbage collector and other processes
+ * the report is one "key value" line per figure, keys like "hard.mean" or "medium.turn.p99.us"
+ * regressions against the baseline: fewer games solved, a higher mean or worst case than the
+ * quality tolerance allows, or more allocation than the performance tolerance allows on top of
+ * ALLOC_SLACK bytes per game (so a figure as small as easy's can take a few more objects from the
+ * JIT or escape analysis); exits with 1 if any
+ * the turn timings are listed when they change but are never a regression: the same code on a slower
+ * or busier machine gives slower turns, so a baseline of them would fail on every such machine
+ * usage: java SolverReport [--out file] [--baseline file] [--tolerance 0.5] [--quality-tolerance 0]
+ *        [--warmup passes] [--passes timed passes] [--strategy minimax|expected-size|entropy|most-parts]
+ *        [--colours X --length N --tries N --no-duplicates]
+ */
+
+import java.io.IOException; // import io exception
+import java.lang.management.ManagementFactory; // import management factory
+import java.nio.file.Files; // import files
+import java.nio.file.Path; // import path
+import java.nio.file.Paths; // import paths
+import java.util.ArrayList; // import array list
+import java.util.Arrays; // import arrays
+import java.util.LinkedHashMap; // import linked hash map
+import java.util.List; // import list
+import java.util.Map; // import map
+
+public class SolverReport {
+
+    static final String[] DIFFICULTIES = {"easy", "medium", "hard"}; // index + 1 is the ComputerPlayer difficulty
+    static final long ALLOC_SLACK = 1024; // bytes per game that allocation may grow by on top of the tolerance
+
+    private final FeedbackScorer scorer; // feedback for the code space
+    private final GuessStrategy strategy; // how hard picks its guesses
+    private final int warmup; // untimed passes over every code before the timed ones
+    private final int passes; // timed passes over every code, the fastest one is reported
+
+    /**
+     * SolverReport
+     * @param scorer
+     * @param strategy how hard picks its guesses
+     * @param warmup untimed passes before the timed ones, so the timings are of compiled code
+     * @param passes timed passes, the fastest one is reported
+     */
+    public SolverReport(FeedbackScorer scorer, GuessStrategy strategy, int warmup, int passes) {
+        this.scorer = scorer;
+        this.strategy = strategy;
+        this.warmup = warmup;
+        this.passes = Math.max(1, passes);
+    }
+
+    /**
+     * run
+     * plays every code at each difficulty
+     * @return figures by key, in report order
+     */
+    public Map<String, String> run() {
+        Map<String, String> report = new LinkedHashMap<>();
+        for (int i = 0; i < DIFFICULTIES.length; i++) {
+            measure(DIFFICULTIES[i], i + 1, report);
+        }
+        return report;
+    }
+
+    /**
+     * measure
+     * plays every code at one difficulty and adds its figures to the report
+     * @param name prefix of the keys
+     * @param difficulty ComputerPlayer.EASY, MEDIUM or HARD
+     * @param report
+     */
+    private void measure(String name, int difficulty, Map<String, String> report) {
+        Simulation simulation = new Simulation(scorer, difficulty, strategy);
+        CodeSpace codeSpace = scorer.getCodeSpace();
+        int maxTries = scorer.getSpec().getMaxTries();
+        for (int pass = 0; pass < warmup; pass++) {
+            for (int secret = 0; secret < scorer.getCodeCount(); secret++) {
+                if (codeSpace.isValid(secret)) {
+                    simulation.playGame(secret, secret);
+                }
+            }
+        }
+
+        long[] counts = new long[maxTries + 2];
+        long[] turns = new long[scorer.getCodeCount() * maxTries]; // nanoseconds of every turn played in a pass
+        long[] gameTurns = new long[maxTries];
+        long meanNanos = Long.MAX_VALUE, p99Nanos = Long.MAX_VALUE, allocated = Long.MAX_VALUE;
+        for (int pass = 0; pass < passes; pass++) {
+            Arrays.fill(counts, 0);
+            int turnCount = 0;
+            long allocatedBefore = allocatedBytes();
+            for (int secret = 0; secret < scorer.getCodeCount(); secret++) {
+                if (codeSpace.isValid(secret)) {
+                    int guesses = simulation.playGame(secret, secret, gameTurns);
+                    counts[guesses]++;
+                    int played = Math.min(guesses, maxTries);
+                    System.arraycopy(gameTurns, 0, turns, turnCount, played);
+                    turnCount += played;
+                }
+            }
+            allocated = Math.min(allocated, allocatedBefore < 0 ? -1 : allocatedBytes() - allocatedBefore);
+            if (turnCount > 0) {
+                long total = 0;
+                for (int i = 0; i < turnCount; i++) {
+                    total += turns[i];
+                }
+                Arrays.sort(turns, 0, turnCount);
+                meanNanos = Math.min(meanNanos, total / turnCount);
+                p99Nanos = Math.min(p99Nanos, turns[(int) Math.ceil(turnCount * 0.99) - 1]);
+            }
+        }
+
+        long games = 0, solved = 0, guesses = 0;
+        int worst = 0;
+        for (int tries = 1; tries <= maxTries; tries++) {
+            games += counts[tries];
+            solved += counts[tries];
+            guesses += counts[tries] * tries;
+            if (counts[tries] > 0) {
+                worst = tries;
+            }
+            report.put(name + ".guesses." + tries, String.valueOf(counts[tries]));
+        }
+        games += counts[maxTries + 1];
+        report.put(name + ".games", String.valueOf(games));
+        report.put(name + ".solved", String.valueOf(solved));
+        report.put(name + ".mean", String.format("%.4f", solved == 0 ? 0.0 : (double) guesses / solved));
+        report.put(name + ".max", String.valueOf(worst));
+        report.put(name + ".turn.mean.us", micros(games == 0 ? 0 : meanNanos));
+        report.put(name + ".turn.p99.us", micros(games == 0 ? 0 : p99Nanos));
+        if (allocated >= 0) {
+            report.put(name + ".alloc.bytes.per.game", String.valueOf(games == 0 ? 0 : allocated / games));
+        }
+    }
+
+    /**
+     * micros
+     * @param nanos
+     * @return nanoseconds as microseconds, with two decimals
+     */
+    private static String micros(long nanos) {
+        return String.format("%.2f", nanos / 1000.0);
+    }
+
+    /**
+     * allocatedBytes
+     * @return bytes allocated by this thread so far, or -1 if the JVM doesn't count them
+     */
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    /**
+     * write
+     * @param spec
+     * @param report
+     * @return the report as text, one "key value" line per figure
+     */
+    public static String write(GameSpec spec, Map<String, String> report) {
+        StringBuilder text = new StringBuilder("# SolverReport " + spec + "\n");
+        for (Map.Entry<String, String> figure : report.entrySet()) {
+            text.append(figure.getKey()).append(' ').append(figure.getValue()).append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * read
+     * @param file report written earlier
+     * @return figures by key, '#' lines are skipped
+     */
+    public static Map<String, String> read(Path file) throws IOException {
+        Map<String, String> report = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(file)) {
+            int space = line.indexOf(' ');
+            if (!line.startsWith("#") && space > 0) {
+                report.put(line.substring(0, space), line.substring(space + 1).trim());
+            }
+        }
+        return report;
+    }
+
+    /**
+     * compare
+     * lists every figure that changed from the baseline, marking the regressions
+     * @param baseline
+     * @param report
+     * @param tolerance how much more allocating a figure may get, e.g. 0.5 for 50%, besides ALLOC_SLACK bytes
+     * @param qualityTolerance how much higher a mean may get, e.g. 0.01 for 1%
+     * @param changes filled with one line per changed figure
+     * @return number of regressions
+     */
+    public static int compare(Map<String, String> baseline, Map<String, String> report, double tolerance,
+                              double qualityTolerance, List<String> changes) {
+        int regressions = 0;
+        for (Map.Entry<String, String> figure : baseline.entrySet()) {
+            String key = figure.getKey();
+            String value = report.get(key);
+            if (value == null) {
+                changes.add("REGRESSION " + key + " " + figure.getValue() + " -> missing");
+                regressions++;
+                continue;
+            }
+            if (value.equals(figure.getValue())) {
+                continue;
+            }
+            double before = Double.parseDouble(figure.getValue());
+            double after = Double.parseDouble(value);
+            boolean regression;
+            if (key.endsWith(".solved")) {
+                regression = after < before;
+            } else if (key.endsWith(".mean") || key.endsWith(".max")) {
+                regression = after > before * (1 + qualityTolerance) + 1e-9;
+            } else if (key.contains(".alloc.")) {
+                regression = after > before * (1 + tolerance) + ALLOC_SLACK;
+            } else {
+                regression = false; // histogram, game counts and turn timings only explain the other figures
+            }
+            changes.add((regression ? "REGRESSION " : "changed ") + key + " " + figure.getValue() + " -> " + value);
+            if (regression) {
+                regressions++;
+            }
+        }
+        return regressions;
+    }
+
+    // main method
+    public static void main(String[] args) throws IOException {
+        GameSpec spec = GameSpec.fromArgs(args); // rules, classic unless changed by options
+        String strategyName = Simulation.option(args, "--strategy");
+        String warmup = Simulation.option(args, "--warmup");
+        String passes = Simulation.option(args, "--passes");
+        String out = Simulation.option(args, "--out");
+        String baseline = Simulation.option(args, "--baseline");
+        String tolerance = Simulation.option(args, "--tolerance");
+        String qualityTolerance = Simulation.option(args, "--quality-tolerance");
+
+        SolverReport solverReport = new SolverReport(FeedbackScorer.forSpec(spec),
+                strategyName != null ? GuessStrategy.fromName(strategyName) : GuessStrategy.MINIMAX,
+                warmup != null ? Integer.parseInt(warmup) : 2, passes != null ? Integer.parseInt(passes) : 5);
+        Map<String, String> report = solverReport.run();
+        String text = write(spec, report);
+        if (out != null) {
+            Files.writeString(Paths.get(out), text);
+        } else {
+            System.out.print(text);
+        }
+
+        if (baseline != null) {
+            List<String> changes = new ArrayList<>();
+            int regressions = compare(read(Paths.get(baseline)), report,
+                    tolerance != null ? Double.parseDouble(tolerance) : 0.5,
+                    qualityTolerance != null ? Double.parseDouble(qualityTolerance) : 0, changes);
+            changes.forEach(System.out::println);
+            System.out.println(regressions == 0 ? "No regressions against " + baseline : regressions + " regressions against " + baseline);
+            if (regressions > 0) {
+                System.exit(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,342 @@
+/**
+ * StrategyTree
+ * a greedy computer-guesses strategy for a spec, precomputed: each node holds a guess and
+ * the node to go to for every feedback id, so playing a game is a walk from the root
+ * the tree is complete in that it covers every secret code, but it is not optimal: each node's
+ * guess is picked by GuessSelector with the chosen GuessStrategy over the codes still possible at
+ * that node, the same greedy choice live hard mode makes, not a search for the tree with the fewest
+ * expected guesses, so a walk plays exactly the games hard mode would
+ * the tree is kept as flat arrays in one buffer, saved as a file and memory-mapped when loaded:
+ * header (see OpeningBook), strategy, feedback count, node count,
+ * then a guess per node, then nodes x feedback ids children (-1 where there is none)
+ * the root is node 0; a tree is immutable, so any number of players can walk it at once
+ * usage: java StrategyTree [minimax|expected-size|entropy|most-parts] [file] [--colours X --length N --tries N --no-duplicates]
+ *        exports the greedy tree for the strategy
+ */
+
+import java.io.IOException; // import io exception
+import java.nio.ByteBuffer; // import byte buffer
+import java.nio.channels.FileChannel; // import file channel
+import java.nio.file.Files; // import files
+import java.nio.file.Path; // import path
+import java.nio.file.Paths; // import paths
+import java.nio.file.StandardOpenOption; // import open options
+import java.util.Arrays; // import arrays
+import java.util.List; // import list
+import java.util.concurrent.ConcurrentHashMap; // import concurrent hash map
+
+public class StrategyTree {
+
+    static final int MAGIC = 0x43425354; // "CBST"
+    static final int VERSION = 1;
+
+    // trees already loaded, by file
+    private static final ConcurrentHashMap<Path, StrategyTree> TREES = new ConcurrentHashMap<>();
+
+    private final ByteBuffer data; // whole tree file, mapped or in memory
+    private final GuessStrategy strategy; // rule the guesses were picked with
+    private final int feedbackCount; // children per node
+    private final int nodeCount; // number of nodes
+    private final int guessesOffset; // byte offset of the node guesses in data
+    private final int childrenOffset; // byte offset of the node children in data
+
+    /**
+     * StrategyTree
+     * wraps tree data after its header has been checked
+     * @param data
+     * @param strategy
+     * @param feedbackCount
+     * @param nodeCount
+     * @param guessesOffset
+     */
+    private StrategyTree(ByteBuffer data, GuessStrategy strategy, int feedbackCount, int nodeCount, int guessesOffset) {
+        this.data = data;
+        this.strategy = strategy;
+        this.feedbackCount = feedbackCount;
+        this.nodeCount = nodeCount;
+        this.guessesOffset = guessesOffset;
+        this.childrenOffset = guessesOffset + 4 * nodeCount;
+    }
+
+    /**
+     * build
+     * precomputes the tree for every code of a scorer's spec
+     * @param scorer
+     * @param strategy
+     * @return tree
+     */
+    public static StrategyTree build(FeedbackScorer scorer, GuessStrategy strategy) {
+        return read(grow(scorer, strategy).encode(), scorer.getSpec());
+    }
+
+    /**
+     * grow
+     * builds the nodes for every code of a scorer's spec
+     * @param scorer
+     * @param strategy
+     * @return builder holding the nodes
+     */
+    private static Builder grow(FeedbackScorer scorer, GuessStrategy strategy) {
+        Builder builder = new Builder(scorer, strategy);
+        CandidateSet all = new CandidateSet(scorer.getCodeSpace());
+        int[] codes = new int[all.cardinality()];
+        all.toArray(codes);
+        builder.build(codes, 1);
+        return builder;
+    }
+
+    /**
+     * load
+     * memory-maps a tree file
+     * @param file
+     * @param spec spec the tree must have been built for
+     * @return tree
+     */
+    public static StrategyTree load(Path file, GameSpec spec) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), spec);
+        }
+    }
+
+    /**
+     * forSpec
+     * returns the shared tree for a spec and strategy if one has been exported to the book
+     * directory (system property codebreaker.books, default the working directory)
+     * @param spec
+     * @param strategy
+     * @return tree, or null if there is no usable tree file
+     */
+    public static StrategyTree forSpec(GameSpec spec, GuessStrategy strategy) {
+        Path file = file(spec, strategy);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        return TREES.computeIfAbsent(file, path -> {
+            try {
+                return load(path, spec);
+            } catch (IOException | IllegalArgumentException e) {
+                return null; // unreadable or stale tree, play without it
+            }
+        });
+    }
+
+    /**
+     * file
+     * @param spec
+     * @param strategy
+     * @return default path of the tree file for a spec and strategy
+     */
+    static Path file(GameSpec spec, GuessStrategy strategy) {
+        return OpeningBook.file(spec, "-" + strategy + ".tree");
+    }
+
+    /**
+     * save
+     * writes the tree to a file, replacing any older tree
+     * @param file
+     */
+    public void save(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer copy = data.duplicate();
+            copy.clear();
+            while (copy.hasRemaining()) {
+                channel.write(copy);
+            }
+        }
+    }
+
+    /**
+     * root
+     * @return node to start a game at
+     */
+    public int root() {
+        return 0;
+    }
+
+    /**
+     * guess
+     * @param node
+     * @return guess to make at a node
+     */
+    public int guess(int node) {
+        return data.getInt(guessesOffset + 4 * node);
+    }
+
+    /**
+     * child
+     * @param node
+     * @param feedback feedback id for the node's guess
+     * @return next node, or -1 if the game is solved or the feedback is impossible
+     */
+    public int child(int node, int feedback) {
+        if (feedback < 0 || feedback >= feedbackCount) {
+            return -1;
+        }
+        return data.getInt(childrenOffset + 4 * (node * feedbackCount + feedback));
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public GuessStrategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * read
+     * checks a tree's header against a spec
+     * @param data
+     * @param spec
+     * @return tree
+     */
+    private static StrategyTree read(ByteBuffer data, GameSpec spec) {
+        ByteBuffer header = data.duplicate();
+        OpeningBook.checkHeader(header, MAGIC, VERSION, spec, "strategy tree");
+        if (header.remaining() < 9) {
+            throw new IllegalArgumentException("strategy tree is truncated");
+        }
+        int strategy = header.get();
+        int feedbackCount = header.getInt();
+        int nodeCount = header.getInt();
+        if (strategy < 0 || strategy >= GuessStrategy.values().length || feedbackCount != spec.getFeedbackCount()
+                || nodeCount < 1 || header.remaining() < 4L * nodeCount * (1 + feedbackCount)) {
+            throw new IllegalArgumentException("strategy tree is truncated");
+        }
+        return new StrategyTree(data, GuessStrategy.values()[strategy], feedbackCount, nodeCount, header.position());
+    }
+
+    /**
+     * Builder
+     * grows the node arrays depth first, so a child always comes after its parent
+     * also counts how many guesses each secret code needs
+     */
+    private static class Builder {
+        private final FeedbackScorer scorer;
+        private final GuessStrategy strategy;
+        private final GuessSelector selector; // picks each node's guess
+        private final int feedbackCount;
+        private int[] guesses = new int[1024]; // guess per node
+        private int[] children = new int[1024]; // feedbackCount entries per node
+        private int nodeCount;
+        private long[] depthCounts = new long[16]; // number of secret codes solved in each number of guesses
+        private int[] path = new int[16]; // guesses from the root to the node being built
+
+        Builder(FeedbackScorer scorer, GuessStrategy strategy) {
+            this.scorer = scorer;
+            this.strategy = strategy;
+            this.selector = new GuessSelector(scorer, strategy);
+            this.feedbackCount = scorer.getFeedbackCount();
+        }
+
+        /**
+         * build
+         * adds the node for a set of possible codes, then its subtrees
+         * @param codes possible codes in index order
+         * @param depth guess number of this node
+         * @return node
+         */
+        int build(int[] codes, int depth) {
+            int node = nodeCount++;
+            if (node == guesses.length) {
+                guesses = Arrays.copyOf(guesses, node * 2);
+            }
+            if ((long) nodeCount * (feedbackCount + 1) > (Integer.MAX_VALUE - 4096) / 4) { // must fit in one buffer
+                throw new IllegalStateException("strategy tree is too large for " + scorer.getSpec());
+            }
+            if (nodeCount * feedbackCount > children.length) {
+                children = Arrays.copyOf(children, Math.max(nodeCount * feedbackCount, children.length * 2));
+            }
+            Arrays.fill(children, node * feedbackCount, nodeCount * feedbackCount, -1);
+
+            int guess = selector.selectGuess(codes, codes.length, Symmetry.of(scorer.getCodeSpace(), path, depth - 1));
+            guesses[node] = guess;
+            if (depth > path.length) {
+                path = Arrays.copyOf(path, depth * 2);
+            }
+            path[depth - 1] = guess;
+
+            // split the codes by feedback, keeping index order inside each part
+            int[] feedback = new int[codes.length];
+            int[] starts = new int[feedbackCount + 1];
+            scorer.scoreAll(guess, codes, 0, codes.length, feedback);
+            for (int i = 0; i < codes.length; i++) {
+                starts[feedback[i] + 1]++;
+            }
+            for (int f = 0; f < feedbackCount; f++) {
+                starts[f + 1] += starts[f];
+            }
+            int[] parts = new int[codes.length];
+            int[] next = Arrays.copyOf(starts, feedbackCount);
+            for (int i = 0; i < codes.length; i++) {
+                parts[next[feedback[i]]++] = codes[i];
+            }
+
+            for (int f = 0; f < feedbackCount; f++) {
+                if (starts[f] == starts[f + 1]) {
+                    continue;
+                }
+                if (f == scorer.solvedId()) {
+                    if (depth >= depthCounts.length) {
+                        depthCounts = Arrays.copyOf(depthCounts, depth * 2);
+                    }
+                    depthCounts[depth]++;
+                } else {
+                    int child = build(Arrays.copyOfRange(parts, starts[f], starts[f + 1]), depth + 1);
+                    children[node * feedbackCount + f] = child;
+                }
+            }
+            return node;
+        }
+
+        /**
+         * encode
+         * lays out the tree in the file format
+         * @return tree data
+         */
+        ByteBuffer encode() {
+            GameSpec spec = scorer.getSpec();
+            ByteBuffer data = ByteBuffer.allocate(OpeningBook.headerSize(spec) + 1 + 4 * 2 + 4 * nodeCount * (1 + feedbackCount));
+            OpeningBook.putHeader(data, MAGIC, VERSION, spec);
+            data.put((byte) strategy.ordinal()).putInt(feedbackCount).putInt(nodeCount);
+            data.asIntBuffer().put(guesses, 0, nodeCount).put(children, 0, nodeCount * feedbackCount);
+            data.clear();
+            return data;
+        }
+    }
+
+    // main method
+    public static void main(String[] args) throws IOException {
+        List<String> values = Simulation.positional(args);
+        GuessStrategy strategy = values.size() > 0 ? GuessStrategy.fromName(values.get(0)) : GuessStrategy.MINIMAX;
+        GameSpec spec = GameSpec.fromArgs(args); // rules, classic unless changed by options
+        Path file = values.size() > 1 ? Paths.get(values.get(1)) : file(spec, strategy);
+
+        FeedbackScorer scorer = FeedbackScorer.forSpec(spec);
+        long start = System.nanoTime();
+        Builder builder = grow(scorer, strategy);
+        StrategyTree tree = read(builder.encode(), spec);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        tree.save(file);
+
+        long codeCount = 0, guesses = 0, unsolved = 0;
+        int worst = 0;
+        System.out.println("Spec: " + spec + ", strategy: " + strategy + " (greedy tree, one guess choice per node)");
+        for (int depth = 1; depth < builder.depthCounts.length; depth++) {
+            long count = builder.depthCounts[depth];
+            if (count == 0) {
+                continue;
+            }
+            codeCount += count;
+            guesses += count * depth;
+            worst = depth;
+            if (depth > spec.getMaxTries()) {
+                unsolved += count;
+            }
+            System.out.println(depth + " guesses: " + count);
+        }
+        System.out.println("Codes: " + codeCount + ", not solved in " + spec.getMaxTries() + " tries: " + unsolved);
+        System.out.printf("Mean guesses: %.4f, worst case: %d%n", (double) guesses / codeCount, worst);
+        System.out.printf("Nodes: %d, built in %.3f s, written to %s (%d bytes)%n", tree.getNodeCount(), seconds, file, Files.size(file));
+    }
+}
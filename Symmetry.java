@@ -0,0 +1,241 @@
+/**
+ * Symmetry
+ * the symmetries of the game that the guesses so far haven't broken, used to skip guesses
+ * that are bound to score the same as another one
+ * 1. free colours, never used in a guess, can be swapped with each other
+ * 2. positions where every guess so far has the same colour can be swapped with each other
+ * swapping either way maps the feedback history to itself, so the candidates (and whether a guess
+ * is a candidate) are unchanged and equivalent guesses get the same cost
+ * only the canonical guess of each class is kept: the lowest index, which is the one the
+ * selector's tie-break would pick anyway, so the chosen guess doesn't change
+ * at the start of the classic game this leaves 5 guesses: AAAA, AAAB, AABB, AABC and ABCD
+ * position swaps are only used while there are at most MAX_PERMUTATIONS of them
+ */
+
+import java.util.Arrays; // import arrays
+
+public final class Symmetry {
+
+    // most position permutations checked per guess (8!)
+    static final long MAX_PERMUTATIONS = 40320;
+
+    private final long[] canonical; // bit per code, set for the lowest code of each class
+    private final int count; // number of canonical codes
+
+    /**
+     * Symmetry
+     * @param canonical
+     * @param count
+     */
+    private Symmetry(long[] canonical, int count) {
+        this.canonical = canonical;
+        this.count = count;
+    }
+
+    /**
+     * of
+     * finds the canonical guesses left by a history of guesses
+     * @param codeSpace
+     * @param guesses guesses made so far
+     * @param guessCount number of entries of guesses in use
+     * @return symmetry, or null if the history leaves no symmetry to use
+     */
+    public static Symmetry of(CodeSpace codeSpace, int[] guesses, int guessCount) {
+        int length = codeSpace.getLength();
+        int colours = codeSpace.getValidChars().length();
+        int[] digits = new int[length];
+
+        // colours used by any guess, and positions whose colours match in every guess
+        boolean[] used = new boolean[colours];
+        for (int g = 0; g < guessCount; g++) {
+            codeSpace.digits(guesses[g], digits);
+            for (int i = 0; i < length; i++) {
+                used[digits[i]] = true;
+            }
+        }
+        int[] positionClass = positionClasses(codeSpace, guesses, guessCount); // lowest position of each class
+
+        int[] free = new int[colours]; // free colours in order
+        int freeCount = 0;
+        for (int c = 0; c < colours; c++) {
+            if (!used[c]) {
+                free[freeCount++] = c;
+            }
+        }
+        if (permutations(positionClass) > MAX_PERMUTATIONS) {
+            for (int i = 0; i < length; i++) {
+                positionClass[i] = i; // too many to check, only swap colours
+            }
+        }
+        boolean positionsMove = false;
+        for (int i = 0; i < length; i++) {
+            positionsMove |= positionClass[i] != i;
+        }
+        if (freeCount < 2 && !positionsMove) {
+            return null;
+        }
+
+        Checker checker = new Checker(length, colours, positionClass, used, Arrays.copyOf(free, freeCount));
+        long[] canonical = new long[(codeSpace.size() + 63) >>> 6];
+        int count = 0;
+        for (int code = 0; code < codeSpace.size(); code++) {
+            if (codeSpace.isValid(code)) {
+                codeSpace.digits(code, digits);
+                if (checker.isCanonical(digits)) {
+                    canonical[code >>> 6] |= 1L << code;
+                    count++;
+                }
+            }
+        }
+        return new Symmetry(canonical, count);
+    }
+
+    /**
+     * isCanonical
+     * @param code
+     * @return true if the code is the lowest code of its class
+     */
+    public boolean isCanonical(int code) {
+        return (canonical[code >>> 6] & (1L << code)) != 0;
+    }
+
+    /**
+     * size
+     * @return number of canonical codes
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * positionClasses
+     * puts each position in the class of the lowest position with the same colour in every guess
+     * @param codeSpace
+     * @param guesses
+     * @param guessCount
+     * @return lowest position of the class, for each position
+     */
+    private static int[] positionClasses(CodeSpace codeSpace, int[] guesses, int guessCount) {
+        int length = codeSpace.getLength();
+        int[][] columns = new int[length][guessCount]; // colours at each position, one per guess
+        int[] digits = new int[length];
+        for (int g = 0; g < guessCount; g++) {
+            codeSpace.digits(guesses[g], digits);
+            for (int i = 0; i < length; i++) {
+                columns[i][g] = digits[i];
+            }
+        }
+        int[] positionClass = new int[length];
+        for (int i = 0; i < length; i++) {
+            positionClass[i] = i;
+            for (int j = 0; j < i; j++) {
+                if (positionClass[j] == j && Arrays.equals(columns[i], columns[j])) {
+                    positionClass[i] = j;
+                    break;
+                }
+            }
+        }
+        return positionClass;
+    }
+
+    /**
+     * permutations
+     * @param positionClass
+     * @return number of ways to permute positions within their classes, capped just above MAX_PERMUTATIONS
+     */
+    private static long permutations(int[] positionClass) {
+        int[] sizes = new int[positionClass.length];
+        long total = 1;
+        for (int c : positionClass) {
+            total *= ++sizes[c];
+            if (total > MAX_PERMUTATIONS) {
+                return MAX_PERMUTATIONS + 1;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Checker
+     * looks for a position swap and free colour relabelling that makes a code smaller,
+     * filling positions left to right and giving free colours the lowest free labels in order
+     * of appearance; branches stop as soon as they are larger than the code
+     */
+    private static class Checker {
+        private final int length;
+        private final int[] positionClass;
+        private final boolean[] fixed; // colours used by a guess, never relabelled
+        private final int[] free; // free colours in order, the labels handed out
+        private final int[] label; // label given to each free colour, -1 if none yet
+        private final boolean[] taken; // positions already placed
+        private final int[][] tried; // colours tried at each position, by visit number
+        private int visits;
+        private int[] digits; // code being checked
+
+        Checker(int length, int colours, int[] positionClass, boolean[] fixed, int[] free) {
+            this.length = length;
+            this.positionClass = positionClass;
+            this.fixed = fixed;
+            this.free = free;
+            this.label = new int[colours];
+            this.taken = new boolean[length];
+            this.tried = new int[length][colours];
+        }
+
+        /**
+         * isCanonical
+         * @param digits
+         * @return true if no symmetry makes the code smaller
+         */
+        boolean isCanonical(int[] digits) {
+            this.digits = digits;
+            Arrays.fill(label, -1);
+            return !smaller(0, 0);
+        }
+
+        /**
+         * smaller
+         * @param slot position being filled
+         * @param labelled number of free labels handed out
+         * @return true if some way of filling the remaining positions gives a smaller code
+         */
+        private boolean smaller(int slot, int labelled) {
+            if (slot == length) {
+                return false; // same code
+            }
+            int visit = ++visits;
+            for (int p = 0; p < length; p++) {
+                if (taken[p] || positionClass[p] != positionClass[slot]) {
+                    continue;
+                }
+                int colour = digits[p];
+                if (tried[slot][colour] == visit) {
+                    continue; // same colour from another position gives the same codes
+                }
+                tried[slot][colour] = visit;
+
+                boolean fresh = !fixed[colour] && label[colour] == -1; // free colour seen for the first time
+                int value = fixed[colour] ? colour : fresh ? free[labelled] : label[colour];
+                if (value < digits[slot]) {
+                    return true;
+                }
+                if (value > digits[slot]) {
+                    continue;
+                }
+                if (fresh) {
+                    label[colour] = value;
+                }
+                taken[p] = true;
+                boolean result = smaller(slot + 1, fresh ? labelled + 1 : labelled);
+                taken[p] = false;
+                if (fresh) {
+                    label[colour] = -1;
+                }
+                if (result) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * VectorFeedbackScorer
+ * PackedScorer that scores one guess against a batch of codes with the Vector API
+ * (jdk.incubator.vector), one code per 64-bit lane:
+ * the packed codes and colour counts of the batch are gathered by index, black pegs are the
+ * zero nibbles of code XOR guess (lane-wise bit count), and matches are the per-colour minimum
+ * of the count nibbles, skipping colours the guess doesn't use
+ * needs precomputed packed codes (code spaces up to MAX_PACKED_CODES)
+ * the module has to be added at compile time and run time (--add-modules jdk.incubator.vector);
+ * without it this class can't load and FeedbackScorer.forSpec() falls back to PackedScorer
+ */
+
+import jdk.incubator.vector.IntVector; // import int vector
+import jdk.incubator.vector.LongVector; // import long vector
+import jdk.incubator.vector.VectorOperators; // import vector operators
+import jdk.incubator.vector.VectorShape; // import vector shape
+import jdk.incubator.vector.VectorSpecies; // import vector species
+
+public class VectorFeedbackScorer extends PackedScorer {
+
+    // widest long vectors the CPU has, and int vectors with the same number of lanes
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS = VectorSpecies.of(int.class, VectorShape.forBitSize(LONGS.vectorBitSize() / 2));
+
+    /**
+     * VectorFeedbackScorer
+     * @param spec
+     */
+    public VectorFeedbackScorer(GameSpec spec) {
+        super(spec);
+        if (packedCodes == null) {
+            throw new IllegalArgumentException("too many codes to precompute for vector scoring: " + spec);
+        }
+    }
+
+    @Override
+    public void scoreAll(int guess, int[] codes, int from, int count, int[] feedback) {
+        long guessCode = packedCodes[guess];
+        long guessCounts = colourCounts[guess];
+        int lanes = LONGS.length();
+        int i = 0;
+        for (; i + lanes <= count; i += lanes) {
+            // black pegs: nibbles where code and guess are equal
+            LongVector diff = LongVector.fromArray(LONGS, packedCodes, 0, codes, from + i).lanewise(VectorOperators.XOR, guessCode);
+            diff = diff.or(diff.lanewise(VectorOperators.LSHR, 1));
+            diff = diff.or(diff.lanewise(VectorOperators.LSHR, 2)); // lowest bit of each nibble is the OR of the nibble
+            LongVector black = diff.and(LOW_BITS).lanewise(VectorOperators.BIT_COUNT).neg().add(length);
+
+            // matches: sum over colours of the smaller count
+            LongVector counts = LongVector.fromArray(LONGS, colourCounts, 0, codes, from + i);
+            LongVector matches = LongVector.zero(LONGS);
+            for (int k = 0; k < colours; k++) {
+                long guessCount = (guessCounts >>> (k << 2)) & 15;
+                if (guessCount != 0) {
+                    matches = matches.add(counts.lanewise(VectorOperators.LSHR, k << 2).and(15).min(guessCount));
+                }
+            }
+
+            // black * (length + 1) + (matches - black)
+            LongVector ids = black.mul(length).add(matches);
+            ((IntVector) ids.castShape(INTS, 0)).intoArray(feedback, i);
+        }
+        for (; i < count; i++) {
+            feedback[i] = score(codes[from + i], guess);
+        }
+    }
+}
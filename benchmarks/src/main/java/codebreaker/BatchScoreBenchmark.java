@@ -0,0 +1,66 @@
+package codebreaker;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * BatchScoreBenchmark
+ * cost of scoring one guess against a batch of candidates with FeedbackScorer.scoreAll(),
+ * nibble-packed one code at a time against the Vector API scorer
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class BatchScoreBenchmark {
+
+    @Param({"packed", "vector"})
+    String scorerType;
+
+    @Param({"6", "8"})
+    int colours;
+
+    @Param({"4", "6"})
+    int length;
+
+    @Param({"4096"})
+    int batch;
+
+    FeedbackScorer scorer;
+    int[] candidates; // pseudo-random codes
+    int[] feedback;
+    int guess;
+
+    @Setup
+    public void setup() {
+        GameSpec spec = new GameSpec(FeedbackBenchmark.COLOURS.substring(0, colours), length, 10, true);
+        scorer = scorerType.equals("vector") ? new VectorFeedbackScorer(spec) : new PackedScorer(spec);
+        candidates = new int[batch];
+        int seed = 12345;
+        for (int i = 0; i < batch; i++) {
+            seed = seed * 1103515245 + 12345;
+            candidates[i] = (seed >>> 8) % scorer.getCodeCount();
+        }
+        feedback = new int[batch];
+        guess = scorer.getCodeCount() / 3; // some mixed-colour code
+    }
+
+    @Benchmark
+    public int[] scoreAll() {
+        scorer.scoreAll(guess, candidates, 0, batch, feedback);
+        return feedback;
+    }
+}
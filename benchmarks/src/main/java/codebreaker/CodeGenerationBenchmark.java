@@ -0,0 +1,50 @@
+package codebreaker;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * CodeGenerationBenchmark
+ * cost of building the whole code space
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class CodeGenerationBenchmark {
+
+    @Param({"4", "6", "8"})
+    int colours;
+
+    @Param({"3", "4", "6"})
+    int length;
+
+    @Benchmark
+    public ArrayList<String> generateAllPossibleCodes() {
+        return Codebreaker.generateAllPossibleCodes(FeedbackBenchmark.COLOURS.substring(0, colours), length);
+    }
+
+    @Benchmark
+    public long codeSpaceStream() {
+        return new CodeSpace(FeedbackBenchmark.COLOURS.substring(0, colours), length).stream(false).count();
+    }
+
+    @Benchmark
+    public CandidateSet candidateSet() {
+        int count = (int) Math.pow(colours, length);
+        return new CandidateSet(count);
+    }
+}
@@ -0,0 +1,79 @@
+package codebreaker;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * FeedbackBenchmark
+ * cost of scoring one guess against one secret code
+ * length 6 exercises the packed scorer instead of the table
+ * every invocation scores the next pair of a fixed pseudo-random sequence, so results aren't constant-folded
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class FeedbackBenchmark {
+
+    static final String COLOURS = "GRBYOPWK"; // colours used for the benchmarked code spaces
+
+    @Param({"4", "6", "8"})
+    int colours;
+
+    @Param({"3", "4", "6"})
+    int length;
+
+    FeedbackScorer scorer;
+    char[][] codes; // every code, decoded
+    int[][] digits; // every code, as digits
+    int[] secretCounts;
+    int[] guessCounts;
+    int pair; // index into the pair sequence
+
+    @Setup
+    public void setup() {
+        scorer = FeedbackScorer.forSpec(new GameSpec(COLOURS.substring(0, colours), length, 10, true));
+        codes = new char[scorer.getCodeCount()][];
+        digits = new int[scorer.getCodeCount()][];
+        for (int code = 0; code < codes.length; code++) {
+            codes[code] = scorer.decode(code);
+            digits[code] = new int[length];
+            scorer.getCodeSpace().digits(code, digits[code]);
+        }
+        secretCounts = new int[colours];
+        guessCounts = new int[colours];
+    }
+
+    private int nextCode() {
+        pair = pair * 1103515245 + 12345;
+        return (pair >>> 8) % scorer.getCodeCount();
+    }
+
+    @Benchmark
+    public int engineScore() {
+        return scorer.score(nextCode(), nextCode());
+    }
+
+    @Benchmark
+    public int digitScore() {
+        return FeedbackScorer.computeFeedback(digits[nextCode()], digits[nextCode()], secretCounts, guessCounts);
+    }
+
+    @Benchmark
+    public int directFeedback() {
+        return Codebreaker.getFeedbackDirect(codes[nextCode()], codes[nextCode()]);
+    }
+}
@@ -0,0 +1,78 @@
+package codebreaker;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * PruneBenchmark
+ * cost of removing the candidates that don't match the feedback for the first guess,
+ * starting from the full code space each time
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class PruneBenchmark {
+
+    @Param({"4", "6", "8"})
+    int colours;
+
+    @Param({"3", "4", "6"})
+    int length;
+
+    FeedbackScorer scorer;
+    ArrayList<String> allCodes; // full code space as strings
+    CandidateSet full; // full code space as a bitset
+    CandidateSet candidates; // working copy, restored before each invocation
+    ArrayList<String> candidateList; // working copy, refilled before each invocation
+    int guess;
+    int feedback;
+    String guessString;
+
+    @Setup
+    public void setup() {
+        String validChars = FeedbackBenchmark.COLOURS.substring(0, colours);
+        scorer = FeedbackScorer.forSpec(new GameSpec(validChars, length, 10, true));
+        allCodes = Codebreaker.generateAllPossibleCodes(validChars, length);
+        full = new CandidateSet(scorer.getCodeCount());
+        candidates = full.snapshot();
+        candidateList = new ArrayList<>(allCodes.size());
+        guess = scorer.getCodeCount() / 3; // some mixed-colour code
+        feedback = scorer.score(scorer.getCodeCount() - 1, guess);
+        guessString = new String(scorer.decode(guess));
+    }
+
+    @Setup(Level.Invocation)
+    public void refill() {
+        candidates.restore(full);
+        candidateList.clear();
+        candidateList.addAll(allCodes);
+    }
+
+    @Benchmark
+    public int candidateSetPrune() {
+        candidates.prune(scorer, guess, feedback);
+        return candidates.cardinality();
+    }
+
+    @Benchmark
+    public int listRemoveIf() {
+        candidateList.removeIf(code -> Codebreaker.getFeedbackDirect(code.toCharArray(), guessString.toCharArray()) != feedback);
+        return candidateList.size();
+    }
+}
@@ -0,0 +1,60 @@
+package codebreaker;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * SolverBenchmark
+ * cost of one complete computer-guesses game, cycling through the secret codes
+ * "tree" walks a minimax StrategyTree built during setup
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class SolverBenchmark {
+
+    @Param({"easy", "medium", "hard", "tree"})
+    String difficulty;
+
+    @Param({"4", "6", "8"})
+    int colours;
+
+    @Param({"3", "4"})
+    int length;
+
+    Simulation simulation;
+    int codeCount;
+    int game; // number of games played, picks the secret code and seed
+
+    @Setup
+    public void setup() {
+        FeedbackScorer scorer = FeedbackScorer.forSpec(new GameSpec(FeedbackBenchmark.COLOURS.substring(0, colours), length, 10, true));
+        if (difficulty.equals("tree")) {
+            simulation = new Simulation(scorer, StrategyTree.build(scorer, GuessStrategy.MINIMAX));
+        } else {
+            int level = difficulty.equals("easy") ? ComputerPlayer.EASY : difficulty.equals("medium") ? ComputerPlayer.MEDIUM : ComputerPlayer.HARD;
+            simulation = new Simulation(scorer, level);
+        }
+        codeCount = scorer.getCodeCount();
+    }
+
+    @Benchmark
+    public int playGame() {
+        game++;
+        return simulation.playGame(game % codeCount, game);
+    }
+}
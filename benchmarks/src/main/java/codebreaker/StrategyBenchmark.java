@@ -0,0 +1,101 @@
+package codebreaker;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * StrategyBenchmark
+ * the guess strategies head to head: one live guess search with the candidates left after
+ * the first guess (largest feedback group), and one complete hard game using the opening book
+ * also the opening search over every code, with and without skipping symmetric guesses
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class StrategyBenchmark {
+
+    @Param({"minimax", "expected-size", "entropy", "most-parts"})
+    String strategy;
+
+    @Param({"6", "8"})
+    int colours;
+
+    @Param({"4"})
+    int length;
+
+    GuessSelector selector;
+    int[] candidates; // codes left after the first guess
+    int count;
+    int[] allCodes; // every code, the candidates for the opening
+    Symmetry openingSymmetry; // symmetry before any guess
+    Simulation simulation;
+    int codeCount;
+    int game; // number of games played, picks the secret code and seed
+
+    @Setup
+    public void setup() {
+        FeedbackScorer scorer = FeedbackScorer.forSpec(new GameSpec(FeedbackBenchmark.COLOURS.substring(0, colours), length, 10, true));
+        GuessStrategy guessStrategy = GuessStrategy.fromName(strategy);
+        selector = new GuessSelector(scorer, guessStrategy);
+        codeCount = scorer.getCodeCount();
+
+        int first = OpeningBook.forScorer(scorer, guessStrategy).firstGuess();
+        int[] sizes = new int[scorer.getFeedbackCount()];
+        for (int code = 0; code < codeCount; code++) {
+            sizes[scorer.score(code, first)]++;
+        }
+        int feedback = 0; // largest group, the hardest second turn
+        for (int f = 1; f < sizes.length; f++) {
+            if (sizes[f] > sizes[feedback]) {
+                feedback = f;
+            }
+        }
+        candidates = new int[sizes[feedback]];
+        for (int code = 0; code < codeCount; code++) {
+            if (scorer.score(code, first) == feedback) {
+                candidates[count++] = code;
+            }
+        }
+        simulation = new Simulation(scorer, ComputerPlayer.HARD, guessStrategy);
+        allCodes = new int[codeCount];
+        for (int code = 0; code < codeCount; code++) {
+            allCodes[code] = code;
+        }
+        openingSymmetry = Symmetry.of(scorer.getCodeSpace(), new int[0], 0);
+    }
+
+    @Benchmark
+    public int selectOpening() {
+        return selector.selectGuess(allCodes, codeCount, openingSymmetry);
+    }
+
+    @Benchmark
+    public int selectOpeningAllGuesses() {
+        return selector.selectGuess(allCodes, codeCount);
+    }
+
+    @Benchmark
+    public int selectSecondGuess() {
+        return selector.selectGuess(candidates, count);
+    }
+
+    @Benchmark
+    public int playGame() {
+        game++;
+        return simulation.playGame(game % codeCount, game);
+    }
+}
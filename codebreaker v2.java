@@ -10,10 +10,12 @@ import java.util.*;
 
 public class Codebreaker {
 
-    // Constants
-    private static final String VALID_CHARS = "GRBYOP";
-    private static final int CODE_LENGTH = 4;
-    private static final int MAX_TRIES = 10;
+    // Constants, taken from the shared game spec
+    private static final GameSpec SPEC = GameSpec.CLASSIC;
+    private static final FeedbackScorer SCORER = FeedbackScorer.forSpec(SPEC);
+    private static final String VALID_CHARS = SPEC.getAlphabet();
+    private static final int CODE_LENGTH = SPEC.getLength();
+    private static final int MAX_TRIES = SPEC.getMaxTries();
 
     public static void main(String[] args) {
         Scanner scanner = new Scanner(System.in);
@@ -188,32 +190,7 @@ public class Codebreaker {
      * Returns a string with 'b' for each correct position and 'w' for correct colour but wrong position.
      */
     private static String getFeedback(char[] secretCode, char[] guess) {
-        int black = 0, white = 0;
-        boolean[] codeUsed = new boolean[secretCode.length];
-        boolean[] guessUsed = new boolean[guess.length];
-
-        // Count black pegs
-        for (int i = 0; i < secretCode.length; i++) {
-            if (secretCode[i] == guess[i]) {
-                black++;
-                codeUsed[i] = true;
-                guessUsed[i] = true;
-            }
-        }
-
-        // Count white pegs
-        for (int i = 0; i < secretCode.length; i++) {
-            if (codeUsed[i]) continue;
-            for (int j = 0; j < guess.length; j++) {
-                if (!guessUsed[j] && secretCode[i] == guess[j]) {
-                    white++;
-                    guessUsed[j] = true;
-                    break;
-                }
-            }
-        }
-
-        return "b".repeat(black) + "w".repeat(white);
+        return SCORER.getFeedback(secretCode, guess);
     }
 
     /**
@@ -6,14 +6,17 @@ import java.util.*;
 
 public class Codebreaker {
 
+    /** Rules of the game, shared with the other front-ends. */
+    private static final GameSpec SPEC = GameSpec.CLASSIC;
+
     /** Valid colors that can be used in the code. */
-    private static final String VALID_COLORS = "GRBYOP";
+    private static final String VALID_COLORS = SPEC.getAlphabet();
    
     /** Length of the secret code. */
-    private static final int CODE_LENGTH = 4;
+    private static final int CODE_LENGTH = SPEC.getLength();
    
     /** Maximum number of guesses allowed. */
-    private static final int MAX_GUESSES = 10;
+    private static final int MAX_GUESSES = SPEC.getMaxTries();
 
     /**
      * Main method to start the game.
@@ -209,26 +212,14 @@ public class Codebreaker {
      * @return A list of all possible combinations.
      */
     private static List<String> generateAllCombinations(String colors, int length) {
-        List<String> combinations = new ArrayList<>();
-        generateCombinationsRecursive("", colors, length, combinations);
-        return combinations;
-    }
-
-    /**
-     * Recursively generates combinations of colors.
-     * @param prefix The current combination prefix.
-     * @param colors The valid characters/colors.
-     * @param length The length of each combination.
-     * @param combinations The list to store all combinations.
-     */
-    private static void generateCombinationsRecursive(String prefix, String colors, int length, List<String> combinations) {
-        if (prefix.length() == length) {
-            combinations.add(prefix);
-            return;
-        }
-        for (char c : colors.toCharArray()) {
-            generateCombinationsRecursive(prefix + c, colors, length, combinations);
+        CodeSpace codeSpace = new CodeSpace(colors, length);
+        List<String> combinations = new ArrayList<>(codeSpace.size());
+        char[] combination = new char[length];
+        for (int index = 0; index < codeSpace.size(); index++) {
+            codeSpace.decode(index, combination);
+            combinations.add(new String(combination));
         }
+        return combinations;
     }
 
     /**
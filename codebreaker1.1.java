@@ -6,63 +6,118 @@
  * 1. The computer sets a secret code, and the user guesses.
  * 2. The user sets a secret code, and the computer guesses based on feedback.
  * The game includes a maximum of 10 guesses and uses the colours 'G', 'R', 'B', 'Y', 'O', 'P'.
+ * Other variants can be played with --colours, --length, --tries and --no-duplicates (see GameSpec).
+ * --seed replays the same secret codes and computer guesses.
+ * --quiet only prints short GUESS/CLUES/RESULT/ERROR records, for scripted games (see ConsoleOutput).
+ * --log file appends every game to a replay log (see ReplayLog); each game runs on its own seed, so
+ * ReplayLog can play it again.
  */
 
 import java.io.*; // import io library
+import java.nio.file.Paths; // import paths
 import java.util.*; // import util library
 
 public class Codebreaker {
 
-    // constants
-    static final String VALID_CHARS = "GRBYOP"; // valid characters for code
-    static final int CODE_LENGTH = 4; // length of secret code
-    static final int MAX_TRIES = 10; // max number of guesses/attempts
+    // game rules and engine, set by setSpec
+    static GameSpec spec; // valid characters, code length, max tries and whether colours repeat
+    static FeedbackScorer scorer; // scoring for the code space, null if it is too large to enumerate
+    static GuessSelector guessSelector; // minimax guess selection for hard mode, created when first used
+    static CodeRandom random = new CodeRandom(); // secret codes and random guesses, seeded with --seed
+    static ConsoleOutput out = new ConsoleOutput(System.out, false); // buffered output, flushed before each input
+    static ReplayLog replayLog; // where games are recorded with --log, or null
+    static GameRecord record; // game being recorded, or null
+
+    static {
+        setSpec(GameSpec.CLASSIC); // classic game unless main is given options
+    }
     
     // main method
     public static void main(String[] args) throws IOException {
+        setSpec(GameSpec.fromArgs(args)); // game rules from command-line options
+        for (int i = 0; i + 1 < args.length; i++) {
+            if (args[i].equals("--seed")) {
+                random.setSeed(args[i + 1]); // same secret codes and random guesses every run
+            }
+        }
+        out = new ConsoleOutput(System.out, Arrays.asList(args).contains("--quiet")); // records only for scripted games
+        String logFile = Simulation.option(args, "--log");
+        if (logFile != null) {
+            replayLog = new ReplayLog(Paths.get(logFile));
+        }
         BufferedReader reader = new BufferedReader(new InputStreamReader(System.in)); // instantiate bufferedreader object
+        try {
+            play(reader);
+        } catch (EOFException e) {
+            // scripted input ran out, nothing left to play
+        } finally {
+            out.flush(); // write whatever is still buffered
+            recordGame(); // a game the input ran out in the middle of
+            if (replayLog != null) {
+                replayLog.close();
+            }
+        }
+    }
 
-        // main game loop
+    /**
+     * play
+     * main game loop, until the player exits or the input ends
+     * @param reader
+     */
+    public static void play(BufferedReader reader) throws IOException {
         while (true) {
-            System.out.println("Welcome to Codebreaker!"); // welcome message
-            System.out.println("Choose a mode:"); // prompt user to select mode
-            System.out.println("1. Computer sets the code, and you guess.");
-            System.out.println("2. You set the code, and the computer guesses.");
-            System.out.println("3. View instructions.");
-            System.out.println("4. Exit the game.");
+            out.println("Welcome to Codebreaker!"); // welcome message
+            out.println("Choose a mode:"); // prompt user to select mode
+            out.println("1. Computer sets the code, and you guess.");
+            out.println("2. You set the code, and the computer guesses.");
+            out.println("3. View instructions.");
+            out.println("4. Exit the game.");
 
             int mode = getValidMode(reader); // call getValidMode method to get valid input
 
             // execute the chosen mode
             if (mode == 1) {
                 playUserGuessesMode(reader); // user guesses the code
+                recordGame();
             } 
             else if (mode == 2) {
                 playComputerGuessesMode(reader); // computer guesses the code
+                recordGame();
             }
             else if(mode == 3) {
-                System.out.println("Codebreaker instructions/rules:");
-                System.out.println("1. In the mode where you guess, the computer will set a random secret code that is 4 characters in length.");
-                System.out.println("This secret code can be made up of any of the following colours/characters: GRBYOP");
-                System.out.println("You will input your guess, and the computer will give you feedback.");
-                System.out.println("'b' means that one of your characters is in the correct spot.");
-                System.out.println("'w' means that you have the correct character in the wrong spot.");
-                System.out.println("You have 10 guesses total to crack the code. Good luck!");
-                System.out.println("2. In the mode where the computer guesses, you will set a secret code that is 4 characters in length.");
-                System.out.println("This secret code can be made up of any of the following colours/characters: GRBYOP");
-                System.out.println("You will give the computer feedback for its guesses. The 'b' and 'w' characters mean the same thing as the previous mode.");
-                System.out.println("If the feedback you provide is inconsistent, the game will end.");
-                System.out.println("The computer has 3 modes of guessing: easy, medium, and difficult.");
-                System.out.println("In easy mode, the computer guesses randomly. In medium mode, the computer uses feedback to guess. In hard mode, the computer chooses the best guess after using the feedback.");
-                System.out.println("Have fun!");
+                out.println("Codebreaker instructions/rules:");
+                out.println("1. In the mode where you guess, the computer will set a random secret code that is " + spec.getLength() + " characters in length.");
+                out.println("This secret code can be made up of any of the following colours/characters: " + spec.getAlphabet());
+                out.println("You will input your guess, and the computer will give you feedback.");
+                out.println("'b' means that one of your characters is in the correct spot.");
+                out.println("'w' means that you have the correct character in the wrong spot.");
+                out.println("You have " + spec.getMaxTries() + " guesses total to crack the code. Good luck!");
+                out.println("2. In the mode where the computer guesses, you will set a secret code that is " + spec.getLength() + " characters in length.");
+                out.println("This secret code can be made up of any of the following colours/characters: " + spec.getAlphabet());
+                out.println("You will give the computer feedback for its guesses. The 'b' and 'w' characters mean the same thing as the previous mode.");
+                out.println("If the feedback you provide is inconsistent, the game will end.");
+                out.println("The computer has 3 modes of guessing: easy, medium, and difficult.");
+                out.println("In easy mode, the computer guesses randomly. In medium mode, the computer uses feedback to guess. In hard mode, the computer chooses the best guess after using the feedback.");
+                out.println("Have fun!");
             }
             else if (mode == 4) {
-                System.out.println("Thank you for playing Codebreaker! Goodbye."); // exit message
+                out.println("Thank you for playing Codebreaker! Goodbye."); // exit message
                 break; // exit the loop to end the program
             }
         }
     }
 
+    /**
+     * setSpec
+     * switches the game rules, and the scoring engine that goes with them
+     * @param newSpec
+     */
+    public static void setSpec(GameSpec newSpec) {
+        spec = newSpec;
+        scorer = newSpec.isEnumerable() ? FeedbackScorer.forSpec(newSpec) : null;
+        guessSelector = null;
+    }
+
     /**
      * getValidInput
      * Ensures the user selects a valid mode (1, 2, or 3).
@@ -72,44 +127,77 @@ public class Codebreaker {
      */
     public static int getValidMode(BufferedReader reader) throws IOException {
         while (true) { // infinite loop until valid input
-            System.out.print("Enter 1, 2, or 3: ");
+            out.print("Enter 1, 2, or 3: ");
             try {
-                int mode = Integer.parseInt(reader.readLine()); // parse input as integer
+                int mode = Integer.parseInt(readLine(reader)); // parse input as integer
                 if (mode >= 1 && mode <= 3) { // check if input is within range
                     return mode; // return valid mode
                 }
             } catch (NumberFormatException e) {
             }
-            System.out.println("Invalid input. Please enter 1, 2, or 3."); // error message
+            out.println("Invalid input. Please enter 1, 2, or 3."); // error message
+            out.record("ERROR invalid choice");
+        }
+    }
+
+    /**
+     * getValidChoice
+     * Ensures the user selects a menu option from 1 to max.
+     * uses a loop to repeatedly prompt until valid input is provided
+     * @param reader
+     * @param max number of options
+     * @return choice
+     */
+    public static int getValidChoice(BufferedReader reader, int max) throws IOException {
+        while (true) { // infinite loop until valid input
+            out.print("Enter a number from 1 to " + max + ": ");
+            try {
+                int choice = Integer.parseInt(readLine(reader)); // parse input as integer
+                if (choice >= 1 && choice <= max) { // check if input is within range
+                    return choice; // return valid choice
+                }
+            } catch (NumberFormatException e) {
+            }
+            out.println("Invalid input. Please enter a number from 1 to " + max + "."); // error message
+            out.record("ERROR invalid choice");
         }
     }
 
     /**
      * playUserGuessesMode
      * game mode where the computer sets the code, and the user guesses
-     * @param VALID_CHARS
-     * @param CODE_LENGTH
+     * @param reader
      */
     public static void playUserGuessesMode(BufferedReader reader) throws IOException {
-        char[] secretCode = generateRandomCode(VALID_CHARS, CODE_LENGTH); // call generateRandomCode method to generate random code
-        System.out.println("The computer has set a secret code."); // output
+        long seed = random.nextLong(); // the game's own seed
+        char[] secretCode = new CodeRandom(seed).nextCode(spec); // first code of the seed, the way the servers draw theirs
+        startRecord(GameRecord.PLAY, 0, null, seed);
+        int solved = Feedback.solved(spec.getLength()); // feedback id for a correct guess
+        out.println("The computer has set a secret code."); // output
 
         // loop for user attempts
-        for (int attempt = 1; attempt <= MAX_TRIES; attempt++) {
-            System.out.println("Attempt " + attempt + "/" + MAX_TRIES + ": Please enter your guess of length " + CODE_LENGTH + " using the letters " + VALID_CHARS + ":");
+        for (int attempt = 1; attempt <= spec.getMaxTries(); attempt++) {
+            out.println("Attempt " + attempt + "/" + spec.getMaxTries() + ": Please enter your guess of length " + spec.getLength() + " using the letters " + spec.getAlphabet() + ":");
             String guess = getValidGuess(reader); // call getValidGuess method to get valid user guess
 
             char[] guessArray = guess.toCharArray(); // convert guess (String) to char array
-            String feedback = getFeedback(secretCode, guessArray); // call getFeedback method to return feedback on the user's guess
-            System.out.println("Guess: " + guess + "\tClues: " + feedback); // display guess and feedback
+            int feedback = getFeedback(secretCode, guessArray); // call getFeedback method to return feedback on the user's guess
+            if (record != null) {
+                record.add(guessArray, feedback);
+            }
+            String clues = Feedback.toString(feedback, spec.getLength());
+            out.println("Guess: " + guess + "\tClues: " + clues); // display guess and feedback
+            out.record("CLUES " + (clues.isEmpty() ? "-" : clues));
 
-            if (feedback.equals("bbbb")) { // check if guess is correct
-                System.out.println("Congratulations! You guessed the code in " + attempt + " attempts!");
+            if (feedback == solved) { // check if guess is correct
+                out.println("Congratulations! You guessed the code in " + attempt + " attempts!");
+                out.record("RESULT WIN " + attempt);
                 return; // end the game if guessed correctly
             }
         }
 
-        System.out.println("Sorry, you lost. The correct code was: " + new String(secretCode)); // game over message
+        out.println("Sorry, you lost. The correct code was: " + new String(secretCode)); // game over message
+        out.record("RESULT LOSE " + new String(secretCode));
     }
 
     /**
@@ -119,56 +207,166 @@ public class Codebreaker {
      */
     public static void playComputerGuessesMode(BufferedReader reader) throws IOException {
         // prompt user to choose a difficulty
-        System.out.println("Choose AI difficulty level:");
-        System.out.println("1. Easy (Random guessing)");
-        System.out.println("2. Medium (Feedback-based elimination)");
-        System.out.println("3. Hard (Optimized strategy)");
+        out.println("Choose AI difficulty level:");
+        out.println("1. Easy (Random guessing)");
+        out.println("2. Medium (Feedback-based elimination)");
+        out.println("3. Hard (Optimized strategy)");
         int difficulty = getValidMode(reader); // call getValidMode to ensure correct mode is chosen
+        GuessStrategy strategy = GuessStrategy.MINIMAX; // how hard mode scores its guesses
+        if (difficulty == ComputerPlayer.HARD) {
+            out.println("Choose hard AI strategy:");
+            out.println("1. Minimax (Smallest worst case)");
+            out.println("2. Expected size (Smallest average group)");
+            out.println("3. Entropy (Most information)");
+            out.println("4. Most parts (Most different clues)");
+            strategy = GuessStrategy.values()[getValidChoice(reader, GuessStrategy.values().length) - 1];
+        }
     
         // prompt user to set a secret code
-        System.out.println("Please set a secret code of length " + CODE_LENGTH + " using the letters " + VALID_CHARS + ": ");
+        out.println("Please set a secret code of length " + spec.getLength() + " using the letters " + spec.getAlphabet() + ": ");
         String userCode = getValidGuess(reader); // reuse getValidGuess method to get a valid code
+        long seed = random.nextLong(); // the game's own seed
+        if (scorer == null) { // too many codes to enumerate, sample guesses instead
+            playSampledGuesses(reader, difficulty, strategy, seed);
+            return;
+        }
     
         char[] secretCode = userCode.toCharArray(); // convert user code (String) to char array
-        ArrayList<String> allPossibleCodes = generateAllPossibleCodes(VALID_CHARS, CODE_LENGTH); // generate all possible codes
+        CodeRandom gameRandom = new CodeRandom(seed); // easy and medium guesses of this game
+        StrategyTree tree = difficulty == ComputerPlayer.HARD ? StrategyTree.forSpec(spec, strategy) : null; // exported strategy tree, if any
+        ComputerPlayer computer; // computer player for the chosen difficulty
+        if (tree != null) {
+            computer = new ComputerPlayer(scorer, tree, gameRandom); // hard guesses without searching
+        } else {
+            OpeningBook book = difficulty == ComputerPlayer.HARD ? OpeningBook.forScorer(scorer, strategy) : null; // precomputed opening for hard mode
+            computer = new ComputerPlayer(scorer, difficulty, strategy, gameRandom, book);
+        }
+        startRecord(GameRecord.SOLVE, difficulty, strategy, seed);
+        ConsistencyChecker checker = new ConsistencyChecker(scorer, computer); // catches contradicting feedback on the turn it is given
+        int solved = Feedback.solved(spec.getLength()); // feedback id for a correct guess
     
         // loop for computer attempts
-        for (int attempt = 1; attempt <= MAX_TRIES; attempt++) {
-            if (allPossibleCodes.isEmpty()) { // check if all possibilities are guessed
-                System.out.println("The feedback provided is inconsistent, code could not be guessed."); // output to user
-                return;
-            }
+        for (int attempt = 1; attempt <= spec.getMaxTries(); attempt++) {
+            int guess = computer.nextGuess(); // guess based on the difficulty
+            String computerGuess = new String(scorer.decode(guess));
     
-            String computerGuess;
+            out.println("Attempt " + attempt + "/" + spec.getMaxTries() + ": Computer guesses: " + computerGuess); // output computer guess
+            out.record("GUESS " + computerGuess);
     
-            // select AI strategy based on difficulty
-            if (difficulty == 1) {
-                computerGuess = easyAIGuess(VALID_CHARS, CODE_LENGTH); // easy mode: random guessing
-            } else if (difficulty == 2) {
-                computerGuess = mediumAIGuess(allPossibleCodes); // medium: feedback based guesses
-            } else {
-                computerGuess = hardAIGuess(allPossibleCodes); // hard: best strategy
+            out.println("Provide feedback (e.g., 'bbww' for 2 black and 2 white pegs): "); // prompt user for feedback
+            int feedback = Feedback.parse(getValidFeedback(reader, spec.getLength()), spec.getLength()); // call method getValidFeedback and convert the feedback to its id
+            if (record != null) {
+                record.add(computerGuess.toCharArray(), feedback);
             }
     
-            System.out.println("Attempt " + attempt + "/" + MAX_TRIES + ": Computer guesses: " + computerGuess); // output computer guess
-    
-            System.out.println("Provide feedback (e.g., 'bbww' for 2 black and 2 white pegs): "); // prompt user for feedback
-            String feedback = getValidFeedback(reader, CODE_LENGTH); // call method getValidFeedback to save feedback given
-    
-            if (feedback.equals("bbbb")) { // check if guess is correct
-                System.out.println("The computer guessed your code in " + attempt + " attempts!");
-                return; // exit game
+            if (!checker.accept(guess, feedback)) { // gives the computer the answer, false if no code gives every answer so far
+                reportConflict(checker);
+                return;
             }
-    
-            // update possible codes based on feedback (medium and hard levels only)
-            if (difficulty > 1) {
-                allPossibleCodes.removeIf(code -> !getFeedback(code.toCharArray(), computerGuess.toCharArray()).equals(feedback));
+
+            if (feedback == solved) { // check if guess is correct
+                out.println("The computer guessed your code in " + attempt + " attempts!");
+                out.record("RESULT SOLVED " + attempt);
+                return; // exit game
             }
         }
     
-        System.out.println("The computer couldn't guess your code. Congratulations, you win!"); // output game result
+        out.println("The computer couldn't guess your code. Congratulations, you win!"); // output game result
+        out.record("RESULT LOST");
     }
     
+    /**
+     * playSampledGuesses
+     * computer guesses for code spaces too large to enumerate (see SampledPlayer), without listing the
+     * possible codes
+     * @param reader
+     * @param difficulty
+     * @param strategy how hard mode weighs its sample
+     * @param seed the game's own seed, drawn from the --seed stream like every other game
+     */
+    public static void playSampledGuesses(BufferedReader reader, int difficulty, GuessStrategy strategy, long seed) throws IOException {
+        SampledPlayer computer = new SampledPlayer(spec, difficulty, strategy, new CodeRandom(seed)); // guesses from the game's own stream
+        startRecord(GameRecord.SOLVE, difficulty, strategy, seed);
+        ConsistencyChecker checker = new ConsistencyChecker(spec); // catches contradicting feedback on the turn it is given
+        int solved = Feedback.solved(spec.getLength()); // feedback id for a correct guess
+
+        for (int attempt = 1; attempt <= spec.getMaxTries(); attempt++) {
+            String computerGuess = new String(computer.nextGuess()); // never null, the checker accepted every answer
+
+            out.println("Attempt " + attempt + "/" + spec.getMaxTries() + ": Computer guesses: " + computerGuess); // output computer guess
+            out.record("GUESS " + computerGuess);
+
+            out.println("Provide feedback (e.g., 'bbww' for 2 black and 2 white pegs): "); // prompt user for feedback
+            int feedback = Feedback.parse(getValidFeedback(reader, spec.getLength()), spec.getLength());
+            if (record != null) {
+                record.add(computerGuess.toCharArray(), feedback);
+            }
+
+            if (!checker.accept(computerGuess.toCharArray(), feedback)) { // no code gives every answer so far, or the search gave up
+                if (checker.isUndetermined()) {
+                    out.println("The feedback couldn't be checked in time, so the computer stops here."); // next guess would need the same search
+                    out.record("RESULT UNDETERMINED");
+                } else {
+                    reportConflict(checker);
+                }
+                return;
+            }
+            if (feedback == solved) {
+                out.println("The computer guessed your code in " + attempt + " attempts!");
+                out.record("RESULT SOLVED " + attempt);
+                return;
+            }
+            computer.feedback(computerGuess.toCharArray(), feedback);
+        }
+
+        out.println("The computer couldn't guess your code. Congratulations, you win!");
+        out.record("RESULT LOST");
+    }
+
+    /**
+     * startRecord
+     * starts recording a game, if there is a replay log and the spec can be recorded
+     * @param kind GameRecord.PLAY or SOLVE
+     * @param difficulty
+     * @param strategy
+     * @param seed seed of the game's random stream
+     */
+    static void startRecord(int kind, int difficulty, GuessStrategy strategy, long seed) {
+        record = replayLog != null && GameRecord.fits(spec) ? new GameRecord(spec, kind, difficulty, strategy, seed) : null;
+    }
+
+    /**
+     * recordGame
+     * appends the game being recorded to the replay log
+     */
+    static void recordGame() {
+        if (record == null) {
+            return;
+        }
+        try {
+            replayLog.append(record);
+        } catch (IOException e) {
+            replayLog = null; // stop recording rather than fail the games
+            System.err.println("Replay log stopped: " + e.getMessage());
+        }
+        record = null;
+    }
+
+    /**
+     * reportConflict
+     * tells the user which answers contradict each other, ending the game
+     * @param checker checker that rejected the last answer
+     */
+    static void reportConflict(ConsistencyChecker checker) {
+        out.println("The feedback provided is inconsistent, code could not be guessed."); // output to user
+        out.println("No code gives the feedback for " + checker.describeConflict() + ".");
+        StringJoiner attempts = new StringJoiner(" "); // conflicting attempts for the record
+        for (int turn : checker.conflict()) {
+            attempts.add(String.valueOf(turn + 1));
+        }
+        out.record("RESULT INCONSISTENT " + attempts);
+    }
+
     /**
      * easyAIGuess
      * method for computer guessing on easy mode
@@ -178,12 +376,7 @@ public class Codebreaker {
      * @return guess
      */
     public static String easyAIGuess(String validChars, int length) {
-        Random random = new Random();
-        StringBuilder guess = new StringBuilder();
-        for (int i = 0; i < length; i++) {
-            guess.append(validChars.charAt(random.nextInt(validChars.length())));
-        }
-        return guess.toString();
+        return new String(random.nextCode(validChars, length));
     }
     
     /**
@@ -194,19 +387,57 @@ public class Codebreaker {
      */
     public static String mediumAIGuess(ArrayList<String> possibleCodes) {
         // picks a random guess from the remaining valid options
-        Random random = new Random();
-        return possibleCodes.get(random.nextInt(possibleCodes.size()));
+        return random.choose(possibleCodes);
     }
-    
+
+    /**
+     * mediumAIGuess
+     * same as above, picking from a candidate set instead of a list
+     * @param possibleCodes
+     */
+    public static String mediumAIGuess(CandidateSet possibleCodes) {
+        int guess = random.choose(possibleCodes); // random remaining candidate
+        return new String(scorer.decode(guess));
+    }
+
     /**
      * hardAIGuess
      * method for computer guessing on hard mode
      * uses a more complex strategy to minimize guesses (knuth's algorithm)
+     * every code is scored against the remaining possible codes, and the guess with the smallest worst-case group wins
      * @param possibleCodes
      */
     public static String hardAIGuess(ArrayList<String> possibleCodes) {
-        // chooses the first guess from the sorted list of possible codes
-        return possibleCodes.get(0);
+        int[] candidates = new int[possibleCodes.size()]; // possible codes as table indices
+        for (int i = 0; i < candidates.length; i++) {
+            candidates[i] = scorer.encode(possibleCodes.get(i).toCharArray());
+        }
+        int guess = getGuessSelector().selectGuess(candidates, candidates.length); // minimax guess
+        return new String(scorer.decode(guess));
+    }
+
+    /**
+     * hardAIGuess
+     * same as above, scoring against a candidate set instead of a list
+     * @param possibleCodes
+     */
+    public static String hardAIGuess(CandidateSet possibleCodes) {
+        int[] candidates = new int[possibleCodes.cardinality()]; // remaining candidates in index order
+        possibleCodes.toArray(candidates);
+        int guess = getGuessSelector().selectGuess(candidates, candidates.length); // minimax guess
+        return new String(scorer.decode(guess));
+    }
+
+    /**
+     * getGuessSelector
+     * creates the minimax guess selector for the current spec the first time it is needed
+     * @return selector
+     */
+    static GuessSelector getGuessSelector() {
+        if (guessSelector == null) {
+            guessSelector = new GuessSelector(scorer);
+        }
+        return guessSelector;
     }
     
     /**
@@ -217,14 +448,23 @@ public class Codebreaker {
      * @return code
      */
     public static char[] generateRandomCode(String validChars, int length) {
-        Random random = new Random(); // random object
-        char[] code = new char[length]; // array to hold the generated code
+        return random.nextCode(validChars, length); // randomly select each character from the shared generator
+    }
 
-        for (int i = 0; i < length; i++) {
-            code[i] = validChars.charAt(random.nextInt(validChars.length())); // randomly select a character
+    /**
+     * readLine
+     * writes the buffered output (the prompt boundary), then waits for a line of input
+     * @param reader
+     * @return line
+     * @throws EOFException if the input has ended
+     */
+    static String readLine(BufferedReader reader) throws IOException {
+        out.flush();
+        String line = reader.readLine();
+        if (line == null) {
+            throw new EOFException("end of input");
         }
-
-        return code; // return the generated code
+        return line;
     }
 
     /**
@@ -236,11 +476,12 @@ public class Codebreaker {
      */
     public static String getValidGuess(BufferedReader reader) throws IOException {
         while (true) { // infinite loop until valid guess is entered
-            String guess = reader.readLine().toUpperCase(); // read user input and convert to uppercase
+            String guess = readLine(reader).toUpperCase(); // read user input and convert to uppercase
             if (isValidGuess(guess)) { // validate the guess by calling isValidGuess method
                 return guess; // return valid guess
             }
-            System.out.println("Invalid guess. Please enter a guess of length " + CODE_LENGTH + " using the letters " + VALID_CHARS + ":"); // error message
+            out.println("Invalid guess. Please enter a guess of length " + spec.getLength() + " using the letters " + spec.getAlphabet() + ":"); // error message
+            out.record("ERROR invalid code");
         }
     }
 
@@ -253,33 +494,24 @@ public class Codebreaker {
      */
     public static String getValidFeedback(BufferedReader reader, int length) throws IOException {
         while (true) { // infinite loop until valid feedback is entered
-            String feedback = reader.readLine().toLowerCase(); // read user input and convert to lowercase
+            String feedback = readLine(reader).toLowerCase(); // read user input and convert to lowercase
             if (isValidFeedback(feedback, length)) { // validate the feedback by calling isValidFeedback method
                 return feedback; // return valid feedback
             }
-            System.out.println("Invalid feedback. Please provide feedback using 'b' and 'w' of length up to " + length + ":"); // error message
+            out.println("Invalid feedback. Please provide feedback using 'b' and 'w' of length up to " + length + ":"); // error message
+            out.record("ERROR invalid feedback");
         }
     }
 
     /**
      * isValidGuess
-     * checks if the guess is of the correct length and contains only valid characters
+     * checks if the guess is of the correct length and contains only valid characters (and no repeats if they aren't allowed)
      * @param guess
      * @return false
      * @return true
      */
     public static boolean isValidGuess(String guess) {
-        if (guess.length() != CODE_LENGTH) { // Check if guess has correct length
-            return false;
-        }
-
-        for (char c : guess.toCharArray()) { // Iterate through each character in the guess
-            if (VALID_CHARS.indexOf(c) == -1) { // Check if character is valid
-                return false;
-            }
-        }
-
-        return true; // Return true if all checks pass
+        return spec.isValidCode(guess); // checks length, characters and repeated colours
     }
 
     /**
@@ -307,12 +539,27 @@ public class Codebreaker {
     /**
      * getFeedback
      * provides feedback for a guess compared to the secret code
-     * returns a string with 'b' for each correct position and 'w' for correct colour but wrong position
+     * returns the feedback id, Feedback.toString() gives 'b' for each correct position and 'w' for correct colour but wrong position
+     * valid codes are scored by the engine (table or packed codes), anything else is scored directly
+     * @param secretCode
+     * @param guess
+     * @return feedback id
+     */
+    public static int getFeedback(char[] secretCode, char[] guess) {
+        if (scorer == null) { // code space too large for the engine
+            return getFeedbackDirect(secretCode, guess);
+        }
+        return scorer.feedback(secretCode, guess); // table or packed lookup, no allocation for valid codes
+    }
+
+    /**
+     * getFeedbackDirect
+     * scores a guess against the secret code without the feedback table
      * @param secretCode
      * @param guess
-     * 
+     * @return feedback id
      */
-    public static String getFeedback(char[] secretCode, char[] guess) {
+    public static int getFeedbackDirect(char[] secretCode, char[] guess) {
         int black = 0, white = 0; // initialize counters for black and white pegs
         boolean[] codeUsed = new boolean[secretCode.length]; // tracks used positions in secret code
         boolean[] guessUsed = new boolean[guess.length]; // tracks used positions in guess
@@ -337,53 +584,30 @@ public class Codebreaker {
                 }
             }
         }
-        // Construct the feedback string using iteration
-        String feedback = "";
-        for (int i = 0; i < black; i++) {
-            feedback += "b";
-        }
-        for (int i = 0; i < white; i++) {
-            feedback += "w";
-        }
-
-        return feedback; // return feedback as a string of 'b' and 'w'
+        return Feedback.id(black, white, secretCode.length); // return feedback as an id, converted to 'b' and 'w' only for display
     }
 
     /**
      * generateAllPossibleCodes
      * generates all possible codes of the given length using the valid characters
-     * uses recursion to generate combinations based on the length and valid characters
+     * steps through the codes like an odometer instead of recursing, so only the finished codes are allocated
      * @param validChars
      * @param length
      * @return codes
      */
     public static ArrayList<String> generateAllPossibleCodes(String validChars, int length) {
-    ArrayList<String> codes = new ArrayList<>(); // List to store all possible codes
+        CodeSpace codeSpace = new CodeSpace(validChars, length); // numbering of all codes
+        ArrayList<String> codes = new ArrayList<>(codeSpace.size()); // List to store all possible codes
 
-    // generate codes calling the helper method for recursion
-    generateCodesHelper(validChars, "", length, codes);
+        int[] digits = new int[length]; // digits of the current code, starts at the first code
+        char[] code = new char[length];
+        do {
+            for (int i = 0; i < length; i++) {
+                code[i] = validChars.charAt(digits[i]);
+            }
+            codes.add(new String(code));
+        } while (CodeSpace.next(digits, validChars.length()));
 
-    return codes;
-    }
-    
-    /**
-     * generateCodesHelper
-     * recursively generates all possible codes
-     * @param validChars
-     * @param currentCode
-     * @param length
-     * @param codes
-    **/
-    public static void generateCodesHelper(String validChars, String currentCode, int length, ArrayList<String> codes) {
-        if (currentCode.length() == length) {
-            // base case - add the completed code to the list
-            codes.add(currentCode);
-            return;
-        }
-    
-        // recursive case - add each valid character to the current code
-        for (int i = 0; i < validChars.length(); i++) {
-            generateCodesHelper(validChars, currentCode + validChars.charAt(i), length, codes);
-        }
+        return codes;
     }
 }